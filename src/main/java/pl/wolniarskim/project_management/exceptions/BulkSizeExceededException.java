@@ -0,0 +1,12 @@
+package pl.wolniarskim.project_management.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.BAD_REQUEST)
+public class BulkSizeExceededException extends RuntimeException{
+
+    public BulkSizeExceededException(int maxSize){
+        super("At most " + maxSize + " tasks can be changed at once");
+    }
+}
@@ -0,0 +1,12 @@
+package pl.wolniarskim.project_management.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.CONFLICT)
+public class ExportNotReadyException extends RuntimeException{
+
+    public ExportNotReadyException(){
+        super("Export is not finished yet");
+    }
+}
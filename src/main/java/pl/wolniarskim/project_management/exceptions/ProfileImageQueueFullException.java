@@ -0,0 +1,12 @@
+package pl.wolniarskim.project_management.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+public class ProfileImageQueueFullException extends RuntimeException{
+
+    public ProfileImageQueueFullException(){
+        super("Too many profile images are being processed, try again later");
+    }
+}
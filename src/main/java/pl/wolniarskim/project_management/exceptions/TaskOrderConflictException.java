@@ -0,0 +1,12 @@
+package pl.wolniarskim.project_management.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.CONFLICT)
+public class TaskOrderConflictException extends RuntimeException{
+
+    public TaskOrderConflictException(){
+        super("Tasks were reordered by someone else, reload the task group and try again");
+    }
+}
@@ -0,0 +1,12 @@
+package pl.wolniarskim.project_management.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.PRECONDITION_FAILED)
+public class TaskVersionConflictException extends RuntimeException{
+
+    public TaskVersionConflictException(){
+        super("Task was changed by someone else, reload it and try again");
+    }
+}
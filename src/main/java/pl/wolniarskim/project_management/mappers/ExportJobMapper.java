@@ -0,0 +1,14 @@
+package pl.wolniarskim.project_management.mappers;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+import pl.wolniarskim.project_management.models.DTO.ExportJobReadModel;
+import pl.wolniarskim.project_management.models.ExportJob;
+
+@Mapper
+public interface ExportJobMapper {
+
+    ExportJobMapper INSTANCE = Mappers.getMapper(ExportJobMapper.class);
+
+    ExportJobReadModel toReadModel(ExportJob exportJob);
+}
@@ -3,8 +3,9 @@ package pl.wolniarskim.project_management.mappers;
 import org.mapstruct.Mapper;
 import pl.wolniarskim.project_management.models.DTO.TaskHistoryReadModel;
 import pl.wolniarskim.project_management.models.TaskHistory;
+import pl.wolniarskim.project_management.services.TaskChangeCodec;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = TaskChangeCodec.class)
 public interface TaskHistoryMapper {
 
     TaskHistoryReadModel fromTask(TaskHistory taskHistory);
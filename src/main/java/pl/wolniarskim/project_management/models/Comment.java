@@ -1,9 +1,13 @@
 package pl.wolniarskim.project_management.models;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 @Data
 @Entity
@@ -11,7 +15,8 @@ import java.time.LocalDateTime;
 public class Comment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_id_seq")
+    @SequenceGenerator(name = "comments_id_seq", sequenceName = "comments_id_seq", allocationSize = 50)
     private long id;
 
     private String content;
@@ -21,4 +26,14 @@ public class Comment {
     @ManyToOne
     private Task task;
     private LocalDateTime createdTime;
+
+    /**
+     * Ids of users mentioned in the content, already notified about the comment.
+     */
+    @ElementCollection
+    @CollectionTable(name = "comment_mentions", joinColumns = @JoinColumn(name = "comment_id"))
+    @Column(name = "user_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Set<Long> mentionedUserIds = new HashSet<>();
 }
@@ -0,0 +1,14 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Query parameters of comment listings. {@code cursor} is the id of the last comment of the previous page.
+ */
+@Getter
+@Setter
+public class CommentFilter {
+    private Long cursor;
+    private Integer size;
+}
@@ -0,0 +1,24 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import java.time.LocalDateTime;
+
+public interface CommentRow {
+
+    long getId();
+
+    String getContent();
+
+    LocalDateTime getCreatedTime();
+
+    long getAuthorId();
+
+    String getAuthorEmail();
+
+    String getAuthorFirstName();
+
+    String getAuthorLastName();
+
+    String getAuthorNick();
+
+    String getAuthorProfileImageHash();
+}
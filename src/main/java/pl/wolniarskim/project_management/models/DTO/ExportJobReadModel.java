@@ -0,0 +1,17 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+import pl.wolniarskim.project_management.models.ExportJobStatus;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class ExportJobReadModel {
+    private long id;
+    private long projectId;
+    private ExportJobStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,16 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+import pl.wolniarskim.project_management.models.NotificationStatus;
+
+/**
+ * Query parameters of the notification inbox. {@code cursor} is the id of the last notification of the previous page.
+ */
+@Getter
+@Setter
+public class NotificationFilter {
+    private Long cursor;
+    private Integer size;
+    private NotificationStatus status;
+}
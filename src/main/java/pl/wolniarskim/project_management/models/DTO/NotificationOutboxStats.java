@@ -0,0 +1,19 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutboxStats {
+    private long pending;
+    private long failed;
+    private long oldestPendingAgeMillis;
+    private long lastDispatchLagMillis;
+    private long dispatchedTotal;
+    private long retriedTotal;
+}
@@ -10,7 +10,7 @@ import java.util.List;
 @Builder
 public class ProfileDetails {
 
-    private String profileImage;
+    private String profileImageHash;
     private String firstName;
     private String lastName;
     private String nick;
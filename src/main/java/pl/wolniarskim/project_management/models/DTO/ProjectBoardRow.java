@@ -0,0 +1,41 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import java.time.LocalDate;
+
+/**
+ * Task group of a project joined with one of its tasks, task columns are null for a group without tasks.
+ */
+public interface ProjectBoardRow {
+
+    long getGroupId();
+
+    String getGroupName();
+
+    Long getTaskId();
+
+    String getTaskName();
+
+    String getTaskStatus();
+
+    String getTaskPriority();
+
+    String getTaskDescription();
+
+    LocalDate getTaskDueDate();
+
+    Double getTaskEstimatedWorkTime();
+
+    Long getTaskVersion();
+
+    Long getOwnerId();
+
+    String getOwnerEmail();
+
+    String getOwnerFirstName();
+
+    String getOwnerLastName();
+
+    String getOwnerNick();
+
+    String getOwnerProfileImageHash();
+}
@@ -0,0 +1,16 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+import pl.wolniarskim.project_management.models.ProjectStatus;
+
+/**
+ * Query parameters of the project list. {@code cursor} is the id of the last project of the previous page.
+ */
+@Getter
+@Setter
+public class ProjectFilter {
+    private Long cursor;
+    private Integer size;
+    private ProjectStatus status;
+}
@@ -0,0 +1,25 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+public interface ProjectMemberRow {
+
+    long getId();
+
+    String getEmail();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getNick();
+
+    String getProfileImageHash();
+
+    Long getRoleId();
+
+    String getRoleName();
+
+    /**
+     * Permission names of the role separated by commas.
+     */
+    String getRolePermissions();
+}
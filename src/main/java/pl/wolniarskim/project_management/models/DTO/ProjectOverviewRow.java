@@ -0,0 +1,24 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+/**
+ * One row of the project overview query, tasks are grouped by priority and every row carries the same
+ * organization id and time entry sums of the project.
+ */
+public interface ProjectOverviewRow {
+
+    long getOrganizationId();
+
+    String getPriority();
+
+    long getNumberOfTasks();
+
+    long getNumberOfCompletedTasks();
+
+    double getAllBillableHours();
+
+    double getAllNonBillableHours();
+
+    double getBillableHoursInCurrentMonth();
+
+    double getNonBillableHoursInCurrentMonth();
+}
@@ -0,0 +1,41 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import java.time.LocalDate;
+
+public interface ProjectRow {
+
+    long getId();
+
+    long getOrganizationId();
+
+    String getName();
+
+    String getStatus();
+
+    LocalDate getStartTime();
+
+    LocalDate getEndTime();
+
+    String getDescription();
+
+    Long getOwnerId();
+
+    String getOwnerEmail();
+
+    String getOwnerFirstName();
+
+    String getOwnerLastName();
+
+    String getOwnerNick();
+
+    String getOwnerProfileImageHash();
+
+    Long getOwnerRoleId();
+
+    String getOwnerRoleName();
+
+    /**
+     * Permission names of the owner's role separated by commas.
+     */
+    String getOwnerRolePermissions();
+}
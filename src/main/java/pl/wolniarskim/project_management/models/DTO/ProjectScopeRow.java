@@ -0,0 +1,13 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+/**
+ * Project and organization a task or task group belongs to, all authorization of bulk operations needs.
+ */
+public interface ProjectScopeRow {
+
+    long getId();
+
+    long getProjectId();
+
+    long getOrganizationId();
+}
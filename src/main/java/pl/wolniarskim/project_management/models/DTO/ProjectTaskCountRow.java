@@ -0,0 +1,12 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+public interface ProjectTaskCountRow {
+
+    long getProjectId();
+
+    String getStatus();
+
+    String getPriority();
+
+    long getTaskCount();
+}
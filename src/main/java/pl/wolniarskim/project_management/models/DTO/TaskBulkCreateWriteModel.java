@@ -0,0 +1,13 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * One task of a bulk create, tasks of one request may go to different task groups.
+ */
+@Getter
+@Setter
+public class TaskBulkCreateWriteModel extends TaskWriteModel {
+    private long taskGroupId;
+}
@@ -0,0 +1,19 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+import pl.wolniarskim.project_management.models.TaskPriority;
+import pl.wolniarskim.project_management.models.TaskStatus;
+
+/**
+ * Changes of one task in a bulk update, fields left null are not changed.
+ */
+@Getter
+@Setter
+public class TaskBulkUpdateWriteModel {
+    private long taskId;
+    private TaskStatus status;
+    private TaskPriority priority;
+    private OwnerWriteModel owner;
+    private Long taskGroupId;
+}
@@ -0,0 +1,20 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Query parameters of task history listing. {@code cursor} is the id of the last entry of the previous page,
+ * {@code since} skips entries created before it.
+ */
+@Getter
+@Setter
+public class TaskHistoryFilter {
+    private Long cursor;
+    private Integer size;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime since;
+}
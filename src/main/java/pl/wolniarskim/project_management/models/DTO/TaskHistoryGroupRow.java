@@ -0,0 +1,10 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import java.time.LocalDate;
+
+public interface TaskHistoryGroupRow {
+
+    long getTaskId();
+
+    LocalDate getDay();
+}
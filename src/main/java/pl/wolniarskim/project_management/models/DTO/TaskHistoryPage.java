@@ -0,0 +1,16 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of task history, newest first. {@code nextCursor} is null on the last page.
+ */
+@Getter
+@Setter
+public class TaskHistoryPage {
+    private List<TaskHistoryReadModel> histories;
+    private Long nextCursor;
+}
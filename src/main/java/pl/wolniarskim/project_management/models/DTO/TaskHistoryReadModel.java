@@ -3,12 +3,17 @@ package pl.wolniarskim.project_management.models.DTO;
 import lombok.Getter;
 import lombok.Setter;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Getter
 @Setter
 public class TaskHistoryReadModel {
 
+    private long id;
+
     private LocalDateTime createdAt;
 
     private String description;
+
+    private List<TaskFieldChange> changes;
 }
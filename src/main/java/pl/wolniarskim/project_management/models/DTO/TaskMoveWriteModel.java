@@ -0,0 +1,16 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Where a task is dropped: the task group and the tasks it lands between. {@code afterTaskId} is null at the start of
+ * the group, {@code beforeTaskId} at its end, both are null when the task is put at the end.
+ */
+@Getter
+@Setter
+public class TaskMoveWriteModel {
+    private long taskGroupId;
+    private Long afterTaskId;
+    private Long beforeTaskId;
+}
@@ -0,0 +1,27 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+import pl.wolniarskim.project_management.models.TaskPriority;
+import pl.wolniarskim.project_management.models.TaskStatus;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Fields of a task changed by a patch, fields left null are not changed. Fields which can be cleared are optional,
+ * a field sent as JSON null is an empty optional and clears the field, a field left out of the JSON stays null.
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskPatchWriteModel {
+    private String name;
+    private TaskStatus status;
+    private TaskPriority priority;
+    private Optional<String> description;
+    private Optional<LocalDate> dueDate;
+    private Double estimatedWorkTime;
+    private Optional<OwnerWriteModel> owner;
+}
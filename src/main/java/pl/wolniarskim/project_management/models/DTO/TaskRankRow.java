@@ -0,0 +1,8 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+public interface TaskRankRow {
+
+    long getId();
+
+    String getRank();
+}
@@ -21,4 +21,5 @@ public class TaskReadModel {
     private UserReadModel owner;
     private double estimatedWorkTime;
     private List<UserReadModel> watchers = new ArrayList<>();
+    private long version;
 }
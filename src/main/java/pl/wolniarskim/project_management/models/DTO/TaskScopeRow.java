@@ -0,0 +1,11 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import pl.wolniarskim.project_management.models.TaskPriority;
+import pl.wolniarskim.project_management.models.TaskStatus;
+
+public interface TaskScopeRow extends ProjectScopeRow {
+
+    TaskStatus getStatus();
+
+    TaskPriority getPriority();
+}
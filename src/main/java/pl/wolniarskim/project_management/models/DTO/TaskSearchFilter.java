@@ -0,0 +1,31 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+import pl.wolniarskim.project_management.models.TaskPriority;
+import pl.wolniarskim.project_management.models.TaskStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Query parameters of task search. {@code query} is matched against task names and descriptions, and against comments
+ * of the task when {@code comments} is set; it takes web search syntax: quoted phrases, {@code or} and {@code -word}.
+ * Every other parameter narrows the result when given. {@code cursor} is the id of the last task of the previous page.
+ */
+@Getter
+@Setter
+public class TaskSearchFilter {
+    private String query;
+    private boolean comments;
+    private TaskStatus status;
+    private TaskPriority priority;
+    private Long ownerId;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dueFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dueTo;
+    private Long projectId;
+    private Long cursor;
+    private Integer size;
+}
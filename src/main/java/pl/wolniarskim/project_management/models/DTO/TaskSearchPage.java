@@ -0,0 +1,16 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of found tasks, newest first. {@code nextCursor} is null on the last page.
+ */
+@Getter
+@Setter
+public class TaskSearchPage {
+    private List<TaskSearchReadModel> tasks;
+    private Long nextCursor;
+}
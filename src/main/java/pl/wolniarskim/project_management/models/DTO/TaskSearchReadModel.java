@@ -0,0 +1,27 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+import pl.wolniarskim.project_management.models.TaskPriority;
+import pl.wolniarskim.project_management.models.TaskStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Task found by search, with the project and task group it belongs to.
+ */
+@Getter
+@Setter
+public class TaskSearchReadModel {
+    private long id;
+    private String name;
+    private TaskStatus status;
+    private TaskPriority priority;
+    private String description;
+    private LocalDate dueDate;
+    private UserReadModel owner;
+    private long taskGroupId;
+    private String taskGroupName;
+    private long projectId;
+    private String projectName;
+}
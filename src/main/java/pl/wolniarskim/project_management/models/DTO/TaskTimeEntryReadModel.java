@@ -1,12 +1,20 @@
 package pl.wolniarskim.project_management.models.DTO;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
+
 @Getter
 @Setter
+@NoArgsConstructor
+@AllArgsConstructor
 public class TaskTimeEntryReadModel {
     private long id;
     private double hoursSpent;
     private String description;
+    private boolean billable;
+    private LocalDateTime createdAt;
 }
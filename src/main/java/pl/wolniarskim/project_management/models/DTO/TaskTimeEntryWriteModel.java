@@ -8,4 +8,5 @@ import lombok.Setter;
 public class TaskTimeEntryWriteModel {
     private double hoursSpent;
     private String description;
+    private boolean billable = true;
 }
@@ -0,0 +1,18 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+public interface TaskWatcherRow {
+
+    long getTaskId();
+
+    long getId();
+
+    String getEmail();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getNick();
+
+    String getProfileImageHash();
+}
@@ -0,0 +1,11 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import pl.wolniarskim.project_management.models.Task;
+
+/**
+ * Managed task together with the project and organization it belongs to, read with a single query.
+ */
+public interface TaskWithScopeRow extends ProjectScopeRow {
+
+    Task getTask();
+}
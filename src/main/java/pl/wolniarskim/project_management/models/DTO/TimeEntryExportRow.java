@@ -0,0 +1,12 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+public interface TimeEntryExportRow {
+
+    double getHoursSpent();
+
+    String getDescription();
+
+    String getEmail();
+
+    String getTaskName();
+}
@@ -0,0 +1,23 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Query parameters of timesheet listings. {@code cursor} is the id of the last entry of the previous page,
+ * {@code from} and {@code to} are inclusive days of entry creation.
+ */
+@Getter
+@Setter
+public class TimeEntryFilter {
+    private Long cursor;
+    private Integer size;
+    private Long userId;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+}
@@ -0,0 +1,20 @@
+package pl.wolniarskim.project_management.models.DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of time entries, newest first. Totals are computed for all entries matching the filter, not only the
+ * ones on the page, and are sent with the first page only. {@code nextCursor} is null on the last page.
+ */
+@Getter
+@Setter
+public class TimeEntryPage {
+    private List<TaskTimeEntryReadModel> timeEntries;
+    private Long nextCursor;
+    private Double totalHours;
+    private Double totalBillableHours;
+    private Double totalNonBillableHours;
+}
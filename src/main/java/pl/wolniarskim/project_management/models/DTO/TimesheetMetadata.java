@@ -6,8 +6,8 @@ import lombok.Setter;
 @Getter
 @Setter
 public class TimesheetMetadata {
-    private long numberOfAllBillableHours;
-    private long numberOfAllNonBillableHours;
-    private long numberOfBillableHoursInCurrentMonth;
-    private long numberOfNonBillableHoursInCurrentMonth;
+    private double numberOfAllBillableHours;
+    private double numberOfAllNonBillableHours;
+    private double numberOfBillableHoursInCurrentMonth;
+    private double numberOfNonBillableHoursInCurrentMonth;
 }
@@ -11,7 +11,7 @@ public class UserReadModel {
 
     private long id;
     private String email;
-    private String profileImage;
+    private String profileImageHash;
     private String firstName;
     private String lastName;
     private String nick;
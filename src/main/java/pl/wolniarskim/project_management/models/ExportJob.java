@@ -0,0 +1,25 @@
+package pl.wolniarskim.project_management.models;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "export_jobs")
+public class ExportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    private long projectId;
+    private String snapshot;
+    @Enumerated(value = EnumType.STRING)
+    private ExportJobStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
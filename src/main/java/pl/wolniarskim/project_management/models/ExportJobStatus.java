@@ -0,0 +1,9 @@
+package pl.wolniarskim.project_management.models;
+
+public enum ExportJobStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED,
+    EXPIRED
+}
@@ -0,0 +1,23 @@
+package pl.wolniarskim.project_management.models;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Number of unread notifications of a user, kept up to date by notification writes.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "notification_counters")
+public class NotificationCounter {
+
+    @Id
+    private long userId;
+
+    private long unreadCount;
+}
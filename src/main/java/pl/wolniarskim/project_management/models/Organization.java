@@ -2,12 +2,14 @@ package pl.wolniarskim.project_management.models;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import pl.wolniarskim.project_management.services.AuthenticatedUserCacheInvalidator;
 
 import javax.persistence.*;
 
 @Data
 @Entity
 @Table(name = "organizations")
+@EntityListeners(AuthenticatedUserCacheInvalidator.class)
 @NoArgsConstructor
 public class Organization {
 
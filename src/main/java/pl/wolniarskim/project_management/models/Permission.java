@@ -5,6 +5,7 @@ import lombok.NoArgsConstructor;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import java.util.Collection;
 
 @NoArgsConstructor
 @Entity
@@ -53,6 +54,30 @@ public class Permission {
         TIME_ENTRY_ADD,
         TIME_ENTRY_REMOVE,
         TIME_ENTRY_READ_ALL,
-        TASK_HISTORY_READ
+        TASK_HISTORY_READ;
+
+        private static final long ALL_PERMISSIONS_MASK = -1L;
+
+        public long mask() {
+            return 1L << ordinal();
+        }
+
+        /**
+         * Folds permissions into a bitmask with one bit per permission, {@link #ALLOW_ALL} sets every bit.
+         */
+        public static long toMask(Collection<Permission> permissions) {
+            long mask = 0L;
+            if (permissions == null) {
+                return mask;
+            }
+            for (Permission permission : permissions) {
+                PermissionEnum permissionEnum = permission.getName();
+                if (permissionEnum == ALLOW_ALL) {
+                    return ALL_PERMISSIONS_MASK;
+                }
+                mask |= permissionEnum.mask();
+            }
+            return mask;
+        }
     }
 }
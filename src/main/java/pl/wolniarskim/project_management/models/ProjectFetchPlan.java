@@ -0,0 +1,13 @@
+package pl.wolniarskim.project_management.models;
+
+/**
+ * Parts of a project read together with it. Every plan reads the project and its owner, {@code MEMBERS} adds
+ * the users of the project, {@code BOARD} adds task groups with their tasks and task owners and {@code FULL} adds
+ * both together with task watchers.
+ */
+public enum ProjectFetchPlan {
+    SUMMARY,
+    MEMBERS,
+    BOARD,
+    FULL
+}
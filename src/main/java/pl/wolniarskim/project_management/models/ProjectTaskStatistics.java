@@ -0,0 +1,26 @@
+package pl.wolniarskim.project_management.models;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+/**
+ * Number of tasks of a project with given status and priority, kept up to date by task writes.
+ * Tasks without status or priority are counted under {@link #NONE}.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "project_task_statistics")
+public class ProjectTaskStatistics {
+
+    public static final String NONE = "NONE";
+
+    @EmbeddedId
+    private ProjectTaskStatisticsId id;
+
+    private long taskCount;
+}
@@ -0,0 +1,20 @@
+package pl.wolniarskim.project_management.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProjectTaskStatisticsId implements Serializable {
+    @Column(name = "project_id")
+    private long projectId;
+    private String status;
+    private String priority;
+}
@@ -1,7 +1,12 @@
 package pl.wolniarskim.project_management.models;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import pl.wolniarskim.project_management.services.AuthenticatedUserCacheInvalidator;
 
 import javax.persistence.*;
 import java.util.List;
@@ -10,6 +15,7 @@ import java.util.List;
 @NoArgsConstructor
 @Entity
 @Table(name = "roles")
+@EntityListeners(AuthenticatedUserCacheInvalidator.class)
 public class Role {
 
     public Role(String name, List<Permission> permissions){
@@ -32,4 +38,23 @@ public class Role {
             inverseJoinColumns = { @JoinColumn(name = "permission_name") }
     )
     private List<Permission> permissions;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile Long permissionMask;
+
+    public void setPermissions(List<Permission> permissions){
+        this.permissions = permissions;
+        this.permissionMask = null;
+    }
+
+    public boolean hasPermission(Permission.PermissionEnum permissionEnum){
+        Long mask = permissionMask;
+        if(mask == null){
+            mask = Permission.PermissionEnum.toMask(permissions);
+            permissionMask = mask;
+        }
+        return (mask & permissionEnum.mask()) != 0;
+    }
 }
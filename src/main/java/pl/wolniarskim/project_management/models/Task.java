@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -14,11 +15,13 @@ import java.util.Set;
 @Data
 @NoArgsConstructor
 @Entity
+@DynamicUpdate
 @Table(name = "tasks")
 public class Task {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_id_seq")
+    @SequenceGenerator(name = "tasks_id_seq", sequenceName = "tasks_id_seq", allocationSize = 50)
     @ToString.Exclude
     private long id;
 
@@ -31,6 +34,11 @@ public class Task {
     private LocalDate dueDate;
     private double estimatedWorkTime;
 
+    @Version
+    private long version;
+    // order within the task group, see RankUtil
+    private String rank;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @ToString.Exclude
     private TaskGroup taskGroup;
@@ -15,7 +15,8 @@ import java.util.Set;
 public class TaskGroup {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_groups_id_seq")
+    @SequenceGenerator(name = "task_groups_id_seq", sequenceName = "task_groups_id_seq", allocationSize = 50)
     private long id;
     private String name;
     @ManyToOne
@@ -2,6 +2,7 @@ package pl.wolniarskim.project_management.models;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -18,8 +19,12 @@ public class TaskHistory {
 
     private LocalDateTime createdAt;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
     private Task task;
 
     private String description;
+
+    @ToString.Exclude
+    private byte[] changes;
 }
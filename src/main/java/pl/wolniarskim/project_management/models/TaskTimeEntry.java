@@ -3,6 +3,7 @@ package pl.wolniarskim.project_management.models;
 import lombok.Data;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 @Data
 @Entity
@@ -10,7 +11,8 @@ import javax.persistence.*;
 public class TaskTimeEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_time_entry_id_seq")
+    @SequenceGenerator(name = "task_time_entry_id_seq", sequenceName = "task_time_entry_id_seq", allocationSize = 50)
     private long id;
     @ManyToOne
     private User user;
@@ -18,4 +20,6 @@ public class TaskTimeEntry {
     private Task task;
     private double hoursSpent;
     private String description;
+    private boolean billable = true;
+    private LocalDateTime createdAt;
 }
@@ -1,10 +1,10 @@
 package pl.wolniarskim.project_management.models;
 
 import lombok.*;
-import org.hibernate.annotations.Type;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import pl.wolniarskim.project_management.services.AuthenticatedUserCacheInvalidator;
 
 import javax.persistence.*;
 import java.util.Collection;
@@ -16,6 +16,7 @@ import java.util.List;
 @NoArgsConstructor
 @Entity
 @Table(name = "users")
+@EntityListeners(AuthenticatedUserCacheInvalidator.class)
 public class User implements UserDetails {
 
     @Id
@@ -29,8 +30,7 @@ public class User implements UserDetails {
     @ManyToOne
     private Organization organization;
 
-    @Type(type="org.hibernate.type.BinaryType")
-    private String profileImage;
+    private String profileImageHash;
 
     @ManyToOne(fetch = FetchType.EAGER)
     private Role mainRole;
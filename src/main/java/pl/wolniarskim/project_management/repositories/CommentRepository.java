@@ -1,14 +1,30 @@
 package pl.wolniarskim.project_management.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import pl.wolniarskim.project_management.models.Comment;
-import pl.wolniarskim.project_management.models.Task;
+import pl.wolniarskim.project_management.models.DTO.CommentRow;
 
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
-    List<Comment> getCommentByTask(Task task);
+    String COMMENT_ROW_COLUMNS = "select c.id as \"id\", c.content as \"content\", c.created_time as \"createdTime\", " +
+            "u.id as \"authorId\", u.email as \"authorEmail\", u.first_name as \"authorFirstName\", " +
+            "u.last_name as \"authorLastName\", u.nick as \"authorNick\", u.profile_image_hash as \"authorProfileImageHash\" " +
+            "from comments c inner join users u on u.id = c.created_by_id ";
+
+    @Query(nativeQuery = true, value = COMMENT_ROW_COLUMNS +
+            "where c.task_id = ?1 order by c.created_time, c.id limit ?2")
+    List<CommentRow> findFirstPageByTaskId(long taskId, int limit);
+
+    /**
+     * Comments following the one with given id, in (created_time, id) order.
+     */
+    @Query(nativeQuery = true, value = COMMENT_ROW_COLUMNS +
+            "where c.task_id = ?1 and (c.created_time, c.id) > (select p.created_time, p.id from comments p where p.id = ?2) " +
+            "order by c.created_time, c.id limit ?3")
+    List<CommentRow> findPageByTaskIdAfter(long taskId, long cursor, int limit);
 }
@@ -0,0 +1,25 @@
+package pl.wolniarskim.project_management.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import pl.wolniarskim.project_management.models.ExportJob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExportJobRepository extends JpaRepository<ExportJob, Long> {
+
+    @Query(nativeQuery = true, value = "select * from export_jobs where project_id = ?1 and snapshot = ?2 and status in ('PENDING', 'RUNNING', 'DONE')")
+    Optional<ExportJob> findLiveJob(long projectId, String snapshot);
+
+    @Query(nativeQuery = true, value = "select * from export_jobs where status = 'DONE' and finished_at < ?1")
+    List<ExportJob> findFinishedBefore(LocalDateTime finishedBefore);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "update export_jobs set status = 'FAILED', finished_at = now() where status in ('PENDING', 'RUNNING')")
+    int failUnfinishedJobs();
+}
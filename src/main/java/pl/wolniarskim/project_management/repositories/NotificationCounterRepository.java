@@ -0,0 +1,36 @@
+package pl.wolniarskim.project_management.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import pl.wolniarskim.project_management.models.NotificationCounter;
+
+@Repository
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, Long> {
+
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into notification_counters(user_id, unread_count) values (?1, greatest(?2, 0)) " +
+            "on conflict (user_id) do update set unread_count = greatest(notification_counters.unread_count + ?2, 0)")
+    void addToUnreadCount(long userId, long delta);
+
+    /**
+     * Keeps counter writes waiting until the transaction ends, unread notifications counted meanwhile stay right.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "lock table notification_counters in share row exclusive mode")
+    void lockForRebuild();
+
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into notification_counters(user_id, unread_count) " +
+            "select related_to_id, count(*) from notifications where status = 'UNREAD' and related_to_id is not null " +
+            "group by related_to_id " +
+            "on conflict (user_id) do update set unread_count = excluded.unread_count " +
+            "where notification_counters.unread_count <> excluded.unread_count")
+    int rebuildUnreadCounts();
+
+    @Modifying
+    @Query(nativeQuery = true, value = "update notification_counters c set unread_count = 0 where unread_count <> 0 " +
+            "and not exists (select 1 from notifications n where n.related_to_id = c.user_id and n.status = 'UNREAD')")
+    int resetCountsWithoutUnreadNotifications();
+}
@@ -1,14 +1,37 @@
 package pl.wolniarskim.project_management.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pl.wolniarskim.project_management.models.Notification;
-import pl.wolniarskim.project_management.models.User;
+import pl.wolniarskim.project_management.models.NotificationStatus;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
-    List<Notification> getAllByRelatedTo(User user);
+    /**
+     * Status is only compared when {@code filtered} is set, a null status would not bind on Postgres.
+     */
+    @Query("select n from Notification n where n.relatedTo.id = :userId and n.id < :cursor " +
+            "and (:filtered = false or n.status = :status) order by n.id desc")
+    List<Notification> findPage(@Param("userId") long userId, @Param("cursor") long cursor,
+                                @Param("filtered") boolean filtered, @Param("status") NotificationStatus status,
+                                Pageable pageable);
+
+    @Modifying
+    @Query("update Notification n set n.status = pl.wolniarskim.project_management.models.NotificationStatus.READ " +
+            "where n.relatedTo.id = :userId and n.status = pl.wolniarskim.project_management.models.NotificationStatus.UNREAD")
+    int markAllAsRead(@Param("userId") long userId);
+
+    @Modifying
+    @Query("update Notification n set n.status = pl.wolniarskim.project_management.models.NotificationStatus.READ " +
+            "where n.relatedTo.id = :userId and n.status = pl.wolniarskim.project_management.models.NotificationStatus.UNREAD " +
+            "and n.id in :ids")
+    int markAsRead(@Param("userId") long userId, @Param("ids") Collection<Long> ids);
 }
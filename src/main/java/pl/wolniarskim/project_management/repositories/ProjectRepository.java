@@ -3,15 +3,54 @@ package pl.wolniarskim.project_management.repositories;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import pl.wolniarskim.project_management.models.DTO.ProjectOverviewRow;
+import pl.wolniarskim.project_management.models.DTO.ProjectRow;
 import pl.wolniarskim.project_management.models.Project;
 import pl.wolniarskim.project_management.models.Task;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProjectRepository extends JpaRepository<Project, Long> {
 
+    @Query("select p.organization.orgId from Project p where p.id = :projectId")
+    Optional<Long> findOrganizationIdByProjectId(@Param("projectId") long projectId);
+
+    String PROJECT_ROW_COLUMNS = "select p.id as \"id\", p.organization_org_id as \"organizationId\", p.name as \"name\", p.status as \"status\", " +
+            "p.start_time as \"startTime\", p.end_time as \"endTime\", p.description as \"description\", " +
+            "u.id as \"ownerId\", u.email as \"ownerEmail\", u.first_name as \"ownerFirstName\", " +
+            "u.last_name as \"ownerLastName\", u.nick as \"ownerNick\", u.profile_image_hash as \"ownerProfileImageHash\", " +
+            "r.id as \"ownerRoleId\", r.name as \"ownerRoleName\", " +
+            "(select string_agg(pr.permission_name, ',') from permissions_roles pr where pr.role_id = r.id) as \"ownerRolePermissions\" " +
+            "from projects p left join users u on u.id = p.owner_id left join roles r on r.id = u.main_role_id ";
+
+    /**
+     * Projects of an organization with ids below the cursor, newest first.
+     */
+    @Query(nativeQuery = true, value = PROJECT_ROW_COLUMNS +
+            "where p.organization_org_id = :orgId and p.id < :cursor and (:filtered = false or p.status = :status) " +
+            "order by p.id desc limit :limit")
+    List<ProjectRow> findPageByOrganizationId(@Param("orgId") long orgId, @Param("cursor") long cursor,
+                                              @Param("filtered") boolean filtered, @Param("status") String status,
+                                              @Param("limit") int limit);
+
+    /**
+     * Projects the user is part of with ids below the cursor, newest first.
+     */
+    @Query(nativeQuery = true, value = PROJECT_ROW_COLUMNS +
+            "where exists (select 1 from projects_users pu where pu.project_id = p.id and pu.user_id = :userId) " +
+            "and p.id < :cursor and (:filtered = false or p.status = :status) " +
+            "order by p.id desc limit :limit")
+    List<ProjectRow> findPageByUserId(@Param("userId") long userId, @Param("cursor") long cursor,
+                                      @Param("filtered") boolean filtered, @Param("status") String status,
+                                      @Param("limit") int limit);
+
+    @Query(nativeQuery = true, value = PROJECT_ROW_COLUMNS + "where p.id = ?1")
+    Optional<ProjectRow> findRowById(long projectId);
+
     @Query(nativeQuery = true, value = "select p.* from projects p inner join projects_users pu on p.id = pu.project_id where pu.user_id = ?1")
     List<Project> findAllByUserId(long userId);
 
@@ -19,5 +58,21 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
     @Query(nativeQuery = true, value = "delete from projects where id = ?1")
     void deleteProjectById(long projectId);
 
-    List<Project> findByOrganizationOrgId(long orgId);
+    @Query(nativeQuery = true, value = "select p.organization_org_id as \"organizationId\", nullif(s.priority, 'NONE') as \"priority\", " +
+            "cast(coalesce(sum(s.task_count), 0) as bigint) as \"numberOfTasks\", " +
+            "cast(coalesce(sum(s.task_count) filter (where s.status = 'DONE'), 0) as bigint) as \"numberOfCompletedTasks\", " +
+            "te.all_billable as \"allBillableHours\", te.all_non_billable as \"allNonBillableHours\", " +
+            "te.month_billable as \"billableHoursInCurrentMonth\", te.month_non_billable as \"nonBillableHoursInCurrentMonth\" " +
+            "from projects p " +
+            "left join project_task_statistics s on s.project_id = p.id " +
+            "cross join (select " +
+            "cast(coalesce(sum(e.hours_spent) filter (where e.billable), 0) as double precision) as all_billable, " +
+            "cast(coalesce(sum(e.hours_spent) filter (where not e.billable), 0) as double precision) as all_non_billable, " +
+            "cast(coalesce(sum(e.hours_spent) filter (where e.billable and e.created_at >= date_trunc('month', now())), 0) as double precision) as month_billable, " +
+            "cast(coalesce(sum(e.hours_spent) filter (where not e.billable and e.created_at >= date_trunc('month', now())), 0) as double precision) as month_non_billable " +
+            "from task_time_entry e inner join tasks et on e.task_id = et.id inner join task_groups etg on et.task_group_id = etg.id " +
+            "where etg.project_id = ?1) te " +
+            "where p.id = ?1 " +
+            "group by p.organization_org_id, s.priority, te.all_billable, te.all_non_billable, te.month_billable, te.month_non_billable")
+    List<ProjectOverviewRow> getOverview(long projectId);
 }
@@ -0,0 +1,49 @@
+package pl.wolniarskim.project_management.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import pl.wolniarskim.project_management.models.DTO.ProjectTaskCountRow;
+import pl.wolniarskim.project_management.models.ProjectTaskStatistics;
+import pl.wolniarskim.project_management.models.ProjectTaskStatisticsId;
+
+import java.util.List;
+
+@Repository
+public interface ProjectTaskStatisticsRepository extends JpaRepository<ProjectTaskStatistics, ProjectTaskStatisticsId> {
+
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into project_task_statistics(project_id, status, priority, task_count) values (?1, ?2, ?3, ?4) " +
+            "on conflict (project_id, status, priority) do update set task_count = project_task_statistics.task_count + excluded.task_count")
+    void addToTaskCount(long projectId, String status, String priority, long delta);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into project_task_statistics(project_id, status, priority, task_count) " +
+            "select tg.project_id, coalesce(t.status, 'NONE'), coalesce(t.priority, 'NONE'), -count(*) " +
+            "from tasks t inner join task_groups tg on t.task_group_id = tg.id where tg.id = ?1 " +
+            "group by tg.project_id, coalesce(t.status, 'NONE'), coalesce(t.priority, 'NONE') " +
+            "on conflict (project_id, status, priority) do update set task_count = project_task_statistics.task_count + excluded.task_count")
+    void subtractTasksOfTaskGroup(long taskGroupId);
+
+    @Query(nativeQuery = true, value = "select tg.project_id as \"projectId\", coalesce(t.status, 'NONE') as \"status\", " +
+            "coalesce(t.priority, 'NONE') as \"priority\", count(*) as \"taskCount\" " +
+            "from tasks t inner join task_groups tg on t.task_group_id = tg.id " +
+            "group by tg.project_id, coalesce(t.status, 'NONE'), coalesce(t.priority, 'NONE')")
+    List<ProjectTaskCountRow> countAllTasks();
+
+    @Modifying
+    @Query(nativeQuery = true, value = "lock table project_task_statistics in share row exclusive mode")
+    void lockForRebuild();
+
+    @Modifying
+    @Query(nativeQuery = true, value = "delete from project_task_statistics")
+    void deleteAllStatistics();
+
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into project_task_statistics(project_id, status, priority, task_count) " +
+            "select tg.project_id, coalesce(t.status, 'NONE'), coalesce(t.priority, 'NONE'), count(*) " +
+            "from tasks t inner join task_groups tg on t.task_group_id = tg.id " +
+            "group by tg.project_id, coalesce(t.status, 'NONE'), coalesce(t.priority, 'NONE')")
+    void rebuildAllStatistics();
+}
@@ -4,12 +4,23 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import pl.wolniarskim.project_management.models.DTO.ProjectMemberRow;
 import pl.wolniarskim.project_management.models.ProjectUser;
 import pl.wolniarskim.project_management.models.ProjectUserId;
 
+import java.util.List;
+
 @Repository
 public interface ProjectUserRepository extends JpaRepository<ProjectUser, ProjectUserId> {
 
+    @Query(nativeQuery = true, value = "select u.id as \"id\", u.email as \"email\", u.first_name as \"firstName\", " +
+            "u.last_name as \"lastName\", u.nick as \"nick\", u.profile_image_hash as \"profileImageHash\", " +
+            "r.id as \"roleId\", r.name as \"roleName\", " +
+            "(select string_agg(pr.permission_name, ',') from permissions_roles pr where pr.role_id = r.id) as \"rolePermissions\" " +
+            "from projects_users pu inner join users u on u.id = pu.user_id left join roles r on r.id = u.main_role_id " +
+            "where pu.project_id = ?1 order by u.id")
+    List<ProjectMemberRow> findMemberRows(long projectId);
+
     @Modifying
     @Query(nativeQuery = true, value = "delete from projects_users where project_id = ?1 and user_id = ?2")
     void deleteUserFromProject(long projectId, long userId);
@@ -3,12 +3,35 @@ package pl.wolniarskim.project_management.repositories;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import pl.wolniarskim.project_management.models.DTO.ProjectBoardRow;
+import pl.wolniarskim.project_management.models.DTO.ProjectScopeRow;
 import pl.wolniarskim.project_management.models.TaskGroup;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface TaskGroupRepository extends JpaRepository<TaskGroup, Long> {
 
+    /**
+     * Task groups of a project with their tasks and task owners, ordered by group and by rank of the tasks.
+     */
+    @Query(nativeQuery = true, value = "select g.id as \"groupId\", g.name as \"groupName\", " +
+            "t.id as \"taskId\", t.name as \"taskName\", t.status as \"taskStatus\", t.priority as \"taskPriority\", " +
+            "t.description as \"taskDescription\", t.due_date as \"taskDueDate\", " +
+            "cast(t.estimated_work_time as double precision) as \"taskEstimatedWorkTime\", t.version as \"taskVersion\", " +
+            "u.id as \"ownerId\", u.email as \"ownerEmail\", u.first_name as \"ownerFirstName\", " +
+            "u.last_name as \"ownerLastName\", u.nick as \"ownerNick\", u.profile_image_hash as \"ownerProfileImageHash\" " +
+            "from task_groups g left join tasks t on t.task_group_id = g.id left join users u on u.id = t.task_owner_id " +
+            "where g.project_id = ?1 order by g.id, t.rank, t.id")
+    List<ProjectBoardRow> findBoardRows(long projectId);
+
+    @Query("select g.id as id, g.project.id as projectId, g.project.organization.orgId as organizationId " +
+            "from TaskGroup g where g.id in :ids")
+    List<ProjectScopeRow> findScopeRowsByIdIn(@Param("ids") Collection<Long> ids);
+
     @Modifying
     @Query(nativeQuery = true, value = "delete from task_groups where id = ?1")
     void deleteTaskGroupById(long taskGroupId);
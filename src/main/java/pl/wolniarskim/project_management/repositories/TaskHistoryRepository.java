@@ -1,13 +1,32 @@
 package pl.wolniarskim.project_management.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import pl.wolniarskim.project_management.models.DTO.TaskHistoryGroupRow;
 import pl.wolniarskim.project_management.models.TaskHistory;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface TaskHistoryRepository extends JpaRepository<TaskHistory, Long> {
 
-    List<TaskHistory> findAllByTask_Id(long taskId);
+    @Query("select h from TaskHistory h where h.task.id = :taskId and h.id < :cursor and h.createdAt >= :since order by h.id desc")
+    List<TaskHistory> findPage(@Param("taskId") long taskId, @Param("cursor") long cursor,
+                               @Param("since") LocalDateTime since, Pageable pageable);
+
+    /**
+     * Days with more than one structured entry of the same task, created before given time.
+     */
+    @Query(nativeQuery = true, value = "select task_id as \"taskId\", cast(created_at as date) as \"day\" from task_histories " +
+            "where changes is not null and created_at < ?1 " +
+            "group by task_id, cast(created_at as date) having count(*) > 1 limit ?2")
+    List<TaskHistoryGroupRow> findCompactableGroups(LocalDateTime createdBefore, int limit);
+
+    @Query("select h from TaskHistory h where h.task.id = :taskId and h.createdAt >= :from and h.createdAt < :to " +
+            "and h.changes is not null order by h.createdAt, h.id")
+    List<TaskHistory> findGroup(@Param("taskId") long taskId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
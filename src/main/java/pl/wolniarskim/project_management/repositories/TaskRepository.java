@@ -1,9 +1,63 @@
 package pl.wolniarskim.project_management.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import pl.wolniarskim.project_management.models.DTO.TaskRankRow;
+import pl.wolniarskim.project_management.models.DTO.TaskScopeRow;
+import pl.wolniarskim.project_management.models.DTO.TaskWatcherRow;
+import pl.wolniarskim.project_management.models.DTO.TaskWithScopeRow;
 import pl.wolniarskim.project_management.models.Task;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
+
+    @Query("select t.taskGroup.project.organization.orgId from Task t where t.id = :taskId")
+    Optional<Long> findOrganizationIdByTaskId(@Param("taskId") long taskId);
+
+    @Query(nativeQuery = true, value = "select ut.task_id as \"taskId\", u.id as \"id\", u.email as \"email\", " +
+            "u.first_name as \"firstName\", u.last_name as \"lastName\", u.nick as \"nick\", " +
+            "u.profile_image_hash as \"profileImageHash\" " +
+            "from users_tasks ut inner join tasks t on t.id = ut.task_id inner join task_groups g on g.id = t.task_group_id " +
+            "inner join users u on u.id = ut.user_id where g.project_id = ?1 order by ut.task_id, u.id")
+    List<TaskWatcherRow> findWatcherRowsByProjectId(long projectId);
+
+    @Query("select t.id as id, g.project.id as projectId, g.project.organization.orgId as organizationId, " +
+            "t.status as status, t.priority as priority from Task t join t.taskGroup g where t.id in :ids")
+    List<TaskScopeRow> findScopeRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select t.id as id, g.project.id as projectId, g.project.organization.orgId as organizationId, t as task " +
+            "from Task t join t.taskGroup g left join fetch t.taskOwner where t.id = :taskId")
+    Optional<TaskWithScopeRow> findWithScopeById(@Param("taskId") long taskId);
+
+    @Query("select distinct t from Task t left join fetch t.taskOwner left join fetch t.watchers where t.id in :ids")
+    List<Task> findAllWithWatchersByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "delete from users_tasks where task_id in ?1")
+    void deleteWatchersByTaskIdIn(Collection<Long> taskIds);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "delete from tasks where id in ?1")
+    void deleteAllByIdIn(Collection<Long> taskIds);
+
+    @Query(nativeQuery = true, value = "select max(rank) from tasks where task_group_id = ?1")
+    Optional<String> findLastRank(long taskGroupId);
+
+    /**
+     * Ranks of the given tasks of the group, locked so a rebalancing of the group cannot change them meanwhile.
+     */
+    @Query(nativeQuery = true, value = "select id as \"id\", rank as \"rank\" from tasks " +
+            "where id in ?1 and task_group_id = ?2 order by id for update")
+    List<TaskRankRow> lockRanks(Collection<Long> taskIds, long taskGroupId);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "update tasks set task_group_id = ?2, rank = ?3 where id = ?1")
+    void moveTask(long taskId, long taskGroupId, String rank);
 }
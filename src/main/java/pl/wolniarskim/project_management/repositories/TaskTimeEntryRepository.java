@@ -1,20 +1,78 @@
 package pl.wolniarskim.project_management.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import pl.wolniarskim.project_management.models.DTO.TaskTimeEntryReadModel;
+import pl.wolniarskim.project_management.models.DTO.TimeEntryExportRow;
+import pl.wolniarskim.project_management.models.DTO.TimeEntryTotalsRow;
 import pl.wolniarskim.project_management.models.TaskTimeEntry;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface TaskTimeEntryRepository extends JpaRepository<TaskTimeEntry, Long> {
 
-    @Query(nativeQuery = true, value = "select t.* from task_time_entry t inner join tasks tk on t.task_id = tk.id inner join task_groups tg on tk.task_group_id = tg.id where tg.project_id = ?1")
-    List<TaskTimeEntry> findAllByProjectId(long projectId);
+    /**
+     * Postgres cannot infer the type of a null date parameter, so date bounds are always given and {@code dated}
+     * tells if they should be applied at all. Entries created before creation dates were stored are never dated.
+     */
+    @Query("select new pl.wolniarskim.project_management.models.DTO.TaskTimeEntryReadModel(e.id, e.hoursSpent, e.description, e.billable, e.createdAt) " +
+            "from TaskTimeEntry e where e.task.taskGroup.project.id = :projectId and e.id < :cursor " +
+            "and (:userId is null or e.user.id = :userId) and (:dated = false or (e.createdAt >= :from and e.createdAt < :to)) " +
+            "order by e.id desc")
+    List<TaskTimeEntryReadModel> findPageByProjectId(@Param("projectId") long projectId, @Param("cursor") long cursor,
+                                                     @Param("userId") Long userId, @Param("dated") boolean dated, @Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to, Pageable pageable);
+
+    @Query("select coalesce(sum(e.hoursSpent), 0.0) as totalHours, " +
+            "coalesce(sum(case when e.billable = true then e.hoursSpent else 0.0 end), 0.0) as totalBillableHours " +
+            "from TaskTimeEntry e where e.task.taskGroup.project.id = :projectId " +
+            "and (:userId is null or e.user.id = :userId) and (:dated = false or (e.createdAt >= :from and e.createdAt < :to))")
+    TimeEntryTotalsRow getTotalsByProjectId(@Param("projectId") long projectId, @Param("userId") Long userId, @Param("dated") boolean dated,
+                                            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select new pl.wolniarskim.project_management.models.DTO.TaskTimeEntryReadModel(e.id, e.hoursSpent, e.description, e.billable, e.createdAt) " +
+            "from TaskTimeEntry e where e.task.id = :taskId and e.id < :cursor " +
+            "and (:userId is null or e.user.id = :userId) and (:dated = false or (e.createdAt >= :from and e.createdAt < :to)) " +
+            "order by e.id desc")
+    List<TaskTimeEntryReadModel> findPageByTaskId(@Param("taskId") long taskId, @Param("cursor") long cursor,
+                                                  @Param("userId") Long userId, @Param("dated") boolean dated, @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to, Pageable pageable);
+
+    @Query("select coalesce(sum(e.hoursSpent), 0.0) as totalHours, " +
+            "coalesce(sum(case when e.billable = true then e.hoursSpent else 0.0 end), 0.0) as totalBillableHours " +
+            "from TaskTimeEntry e where e.task.id = :taskId " +
+            "and (:userId is null or e.user.id = :userId) and (:dated = false or (e.createdAt >= :from and e.createdAt < :to))")
+    TimeEntryTotalsRow getTotalsByTaskId(@Param("taskId") long taskId, @Param("userId") Long userId, @Param("dated") boolean dated,
+                                         @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
-    @Query(nativeQuery = true, value = "select t.* from task_time_entry t inner join tasks tk on t.task_id = tk.id inner join task_groups tg on tk.task_group_id = tg.id where tg.project_id = ?2 and t.user_id = ?1")
-    List<TaskTimeEntry> findAllByUserIdAndProjectId(long userId, long projectId);
+    /**
+     * Digest of every exported value of the project, changes with every edit, delete, insert and rename which changes
+     * the export and with nothing else. Computed when an export is requested, so writes do not pay for it.
+     */
+    @Query(nativeQuery = true, value = "select md5(count(t.id) || ':' || coalesce(sum(hashtextextended(" +
+            "cast(row(t.id, t.hours_spent, t.description, u.email, tk.name) as text), 0)), 0)) " +
+            "from task_time_entry t inner join tasks tk on t.task_id = tk.id inner join task_groups tg on tk.task_group_id = tg.id " +
+            "left join users u on t.user_id = u.id where tg.project_id = ?1")
+    String getExportSnapshot(long projectId);
 
-    List<TaskTimeEntry> findAllByTask_Id(long taskId);
+    /**
+     * Rows are fetched from the cursor in batches, so the stream has to be consumed inside a transaction and closed.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query(nativeQuery = true, value = "select t.hours_spent as \"hoursSpent\", t.description as \"description\", " +
+            "u.email as \"email\", tk.name as \"taskName\" " +
+            "from task_time_entry t inner join tasks tk on t.task_id = tk.id inner join task_groups tg on tk.task_group_id = tg.id " +
+            "left join users u on t.user_id = u.id where tg.project_id = ?1 order by t.id")
+    Stream<TimeEntryExportRow> streamExportRowsByProjectId(long projectId);
 }
@@ -1,13 +1,20 @@
 package pl.wolniarskim.project_management.resources;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
-import pl.wolniarskim.project_management.models.DTO.NotificationReadModel;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.wolniarskim.project_management.models.DTO.NotificationFilter;
+import pl.wolniarskim.project_management.models.DTO.NotificationOutboxStats;
+import pl.wolniarskim.project_management.models.DTO.NotificationPage;
+import pl.wolniarskim.project_management.services.NotificationDispatcher;
 import pl.wolniarskim.project_management.services.NotificationService;
+import pl.wolniarskim.project_management.services.NotificationSubscriberRegistry;
 
 import java.util.List;
 
 import static pl.wolniarskim.project_management.utils.SecurityUtil.getLoggedUser;
+import static pl.wolniarskim.project_management.utils.SecurityUtil.getLoggedUserId;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -15,10 +22,37 @@ import static pl.wolniarskim.project_management.utils.SecurityUtil.getLoggedUser
 public class NotificationResource {
 
     private final NotificationService notificationService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationSubscriberRegistry notificationSubscriberRegistry;
 
     @GetMapping
-    public List<NotificationReadModel> getAllNotifications(){
-        return notificationService.getAllNotifications(getLoggedUser());
+    public NotificationPage getNotifications(NotificationFilter filter){
+        return notificationService.getNotifications(getLoggedUser(), filter);
+    }
+
+    @GetMapping("/unread-count")
+    public long getUnreadCount(){
+        return notificationService.getUnreadCount(getLoggedUser());
+    }
+
+    @PostMapping("/read")
+    public int markAsRead(@RequestBody List<Long> notificationIds){
+        return notificationService.markAsRead(getLoggedUser(), notificationIds);
+    }
+
+    @PostMapping("/read-all")
+    public int markAllAsRead(){
+        return notificationService.markAllAsRead(getLoggedUser());
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(){
+        return notificationSubscriberRegistry.subscribe(getLoggedUserId());
+    }
+
+    @GetMapping("/outbox")
+    public NotificationOutboxStats getOutboxStats(){
+        return notificationDispatcher.getStats();
     }
 
     @PostMapping("/{notificationId}")
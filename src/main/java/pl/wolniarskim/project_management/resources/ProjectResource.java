@@ -5,12 +5,11 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import pl.wolniarskim.project_management.models.DTO.*;
+import pl.wolniarskim.project_management.models.ProjectFetchPlan;
 import pl.wolniarskim.project_management.models.ProjectUserRole;
 import pl.wolniarskim.project_management.services.ProjectService;
 import pl.wolniarskim.project_management.services.TaskTimeEntryService;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/projects")
 @RequiredArgsConstructor
@@ -19,13 +18,19 @@ public class ProjectResource {
     private final ProjectService projectService;
     private final TaskTimeEntryService taskTimeEntryService;
     @GetMapping
-    public List<SimpleProjectReadModel> getAllProjects(){
-        return projectService.getAllProject();
+    public ProjectPage getAllProjects(ProjectFilter filter){
+        return projectService.getAllProject(filter);
     }
 
     @GetMapping("/{projectId}")
-    public ProjectReadModel getProjectById(@PathVariable("projectId") long projectId){
-        return projectService.getProjectById(projectId);
+    public ProjectReadModel getProjectById(@PathVariable("projectId") long projectId,
+                                           @RequestParam(value = "plan", defaultValue = "FULL") ProjectFetchPlan plan){
+        return projectService.getProjectById(projectId, plan);
+    }
+
+    @GetMapping("/{projectId}/board")
+    public ProjectReadModel getProjectBoard(@PathVariable("projectId") long projectId){
+        return projectService.getProjectById(projectId, ProjectFetchPlan.BOARD);
     }
 
     @PostMapping("/create")
@@ -65,7 +70,7 @@ public class ProjectResource {
     }
 
     @GetMapping("/timesheet/{projectId}")
-    public List<TaskTimeEntryReadModel> getTimeEntries(@PathVariable("projectId") long projectId){
-        return taskTimeEntryService.getTimeEntries(projectId);
+    public TimeEntryPage getTimeEntries(@PathVariable("projectId") long projectId, TimeEntryFilter filter){
+        return taskTimeEntryService.getTimeEntries(projectId, filter);
     }
 }
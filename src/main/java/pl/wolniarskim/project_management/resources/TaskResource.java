@@ -2,13 +2,19 @@ package pl.wolniarskim.project_management.resources;
 
 import lombok.RequiredArgsConstructor;
 import org.hibernate.annotations.Parameter;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import pl.wolniarskim.project_management.exceptions.TaskVersionConflictException;
 import pl.wolniarskim.project_management.models.DTO.*;
 import pl.wolniarskim.project_management.models.TaskHistory;
 import pl.wolniarskim.project_management.models.TaskTimeEntry;
 import pl.wolniarskim.project_management.services.CommentService;
+import pl.wolniarskim.project_management.services.ExportJobService;
 import pl.wolniarskim.project_management.services.TaskHistoryService;
+import pl.wolniarskim.project_management.services.TaskSearchService;
 import pl.wolniarskim.project_management.services.TaskService;
 import pl.wolniarskim.project_management.services.TaskTimeEntryService;
 
@@ -23,9 +29,11 @@ import static pl.wolniarskim.project_management.utils.SecurityUtil.getLoggedUser
 @RequiredArgsConstructor
 public class TaskResource {
     private final TaskService taskService;
+    private final TaskSearchService taskSearchService;
     private final CommentService commentService;
     private final TaskHistoryService taskHistoryService;
     private final TaskTimeEntryService taskTimeEntryService;
+    private final ExportJobService exportJobService;
 
     @PostMapping("/create/{taskGroupId}")
     public TaskReadModel createTask(@RequestBody TaskWriteModel taskWriteModel,
@@ -40,19 +48,54 @@ public class TaskResource {
     }
 
     @PutMapping("/update/{taskId}")
-    public TaskReadModel updateTask(@RequestBody TaskWriteModel taskWriteModel,
-                                              @PathVariable("taskId") long taskId){
-        return taskService.updateTask(taskId, taskWriteModel);
+    public ResponseEntity<TaskReadModel> updateTask(@RequestBody TaskWriteModel taskWriteModel,
+                                                    @PathVariable("taskId") long taskId,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        return withETag(taskService.updateTask(taskId, taskWriteModel, toVersion(ifMatch)));
+    }
+
+    @PatchMapping("/{taskId}")
+    public ResponseEntity<TaskReadModel> patchTask(@RequestBody TaskPatchWriteModel patch,
+                                                   @PathVariable("taskId") long taskId,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        return withETag(taskService.patchTask(taskId, patch, toVersion(ifMatch)));
+    }
+
+    @PutMapping("/{taskId}/move")
+    public ResponseEntity<Void> moveTask(@PathVariable("taskId") long taskId, @RequestBody TaskMoveWriteModel move){
+        taskService.moveTask(taskId, move);
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/search")
+    public TaskSearchPage searchTasks(TaskSearchFilter filter){
+        return taskSearchService.search(filter);
+    }
+
+    @PostMapping("/bulk/create")
+    public List<TaskReadModel> createTasks(@RequestBody List<TaskBulkCreateWriteModel> taskWriteModels){
+        return taskService.createTasks(taskWriteModels);
+    }
+
+    @PutMapping("/bulk/update")
+    public List<TaskReadModel> updateTasks(@RequestBody List<TaskBulkUpdateWriteModel> taskWriteModels){
+        return taskService.updateTasks(taskWriteModels);
+    }
+
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<Void> deleteTasks(@RequestBody List<Long> taskIds){
+        taskService.deleteTasks(taskIds);
+        return ResponseEntity.ok().build();
     }
 
     @GetMapping("/comments/{taskId}")
-    public List<CommentReadModel> getComments(@PathVariable("taskId") long taskId){
-        return commentService.getCommentsForTask(taskId);
+    public CommentPage getComments(@PathVariable("taskId") long taskId, CommentFilter filter){
+        return commentService.getCommentsForTask(taskId, filter);
     }
 
     @GetMapping("/history/{taskId}")
-    public List<TaskHistoryReadModel> getHistories(@PathVariable("taskId") long taskId){
-        return taskHistoryService.getHistories(taskId);
+    public TaskHistoryPage getHistories(@PathVariable("taskId") long taskId, TaskHistoryFilter filter){
+        return taskHistoryService.getHistories(taskId, filter);
     }
 
     @PostMapping("/timesheet/{taskId}")
@@ -61,8 +104,8 @@ public class TaskResource {
     }
 
     @GetMapping("/timesheet/{taskId}")
-    public List<TaskTimeEntryReadModel> getTimeEntries(@PathVariable("taskId") long taskId){
-        return taskTimeEntryService.getTimeEntriesForTask(taskId);
+    public TimeEntryPage getTimeEntries(@PathVariable("taskId") long taskId, TimeEntryFilter filter){
+        return taskTimeEntryService.getTimeEntriesForTask(taskId, filter);
     }
 
     @DeleteMapping("/timesheet/{timeEntryId}")
@@ -76,4 +119,45 @@ public class TaskResource {
     public void exportTimeEntries(@PathVariable("projectId") long projectId, HttpServletResponse response) throws IOException {
         taskTimeEntryService.exportTimeEntry(response, projectId);
     }
+
+    @PostMapping("/timesheet/export/{projectId}/jobs")
+    public ExportJobReadModel requestTimeEntriesExport(@PathVariable("projectId") long projectId){
+        return exportJobService.requestExport(projectId);
+    }
+
+    @GetMapping("/timesheet/export/jobs/{exportJobId}")
+    public ExportJobReadModel getTimeEntriesExport(@PathVariable("exportJobId") long exportJobId){
+        return exportJobService.getExportJob(exportJobId);
+    }
+
+    @GetMapping("/timesheet/export/jobs/{exportJobId}/file")
+    public ResponseEntity<Resource> downloadTimeEntriesExport(@PathVariable("exportJobId") long exportJobId){
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=time_entries_" + exportJobId + ".csv.gz")
+                .body(exportJobService.getExportFile(exportJobId));
+    }
+
+    private static ResponseEntity<TaskReadModel> withETag(TaskReadModel task){
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(task.getVersion()))
+                .body(task);
+    }
+
+    // the ETag of a task is its version, "*" matches every version
+    private static Long toVersion(String ifMatch){
+        if(ifMatch == null || ifMatch.trim().equals("*")){
+            return null;
+        }
+        String tag = ifMatch.trim();
+        // If-Match uses the strong comparison, a weak tag never matches
+        if(tag.startsWith("W/")){
+            throw new TaskVersionConflictException();
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e){
+            throw new TaskVersionConflictException();
+        }
+    }
 }
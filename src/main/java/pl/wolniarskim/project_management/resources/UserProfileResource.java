@@ -1,28 +1,85 @@
 package pl.wolniarskim.project_management.resources;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import pl.wolniarskim.project_management.models.DTO.ProfileDetails;
 import pl.wolniarskim.project_management.models.DTO.ProfileDetailsWriteModel;
+import pl.wolniarskim.project_management.services.ProfileImageService;
 import pl.wolniarskim.project_management.services.UserService;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/profile")
 @RequiredArgsConstructor
 public class UserProfileResource {
 
+    private static final String IMMUTABLE_CACHE_CONTROL = "private, max-age=31536000, immutable";
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final UserService userService;
+    private final ProfileImageService profileImageService;
 
     @PostMapping("/profile-image")
     public ResponseEntity<ProfileDetails> uploadProfileImage(@RequestParam("image") MultipartFile file) throws IOException {
         return ResponseEntity.ok().body(userService.uploadProfileImage(file));
     }
 
+    /**
+     * Images never change under their hash, they are cached for a year and revalidated by the hash as strong ETag.
+     * With {@code size} the smallest rendition covering it is served instead of the original.
+     * On Tomcat the file is handed to the connector with sendfile instead of being copied through the response stream.
+     */
+    @GetMapping("/images/{hash}")
+    public ResponseEntity<Resource> getProfileImage(@PathVariable("hash") String hash,
+                                                    @RequestParam(value = "size", required = false) Integer size,
+                                                    WebRequest webRequest,
+                                                    HttpServletRequest request) throws IOException {
+        Optional<Path> image = size == null ? profileImageService.find(hash) : profileImageService.find(hash, size);
+        if(image.isEmpty()){
+            return ResponseEntity.notFound().build();
+        }
+        // files are named by the hash and the rendition size, so the name tells the variants apart
+        String eTag = "\"" + image.get().getFileName() + "\"";
+        if(webRequest.checkNotModified(eTag)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL)
+                    .build();
+        }
+
+        long length = Files.size(image.get());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(eTag)
+                .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL)
+                .contentType(profileImageService.getContentType(image.get())
+                        .map(MediaType::parseMediaType)
+                        .orElse(MediaType.APPLICATION_OCTET_STREAM))
+                .contentLength(length);
+        if(Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))){
+            request.setAttribute(SENDFILE_FILENAME, image.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return response.build();
+        }
+        return response.body(new FileSystemResource(image.get()));
+    }
+
     @GetMapping("/profile-details")
     public ResponseEntity<ProfileDetails> getProfileDetails() {
         return ResponseEntity.ok()
@@ -0,0 +1,128 @@
+package pl.wolniarskim.project_management.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pl.wolniarskim.project_management.models.User;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps users resolved from access tokens, so that authorizing a request does not need a database round trip.
+ * Entries are keyed by token subject and expiry, live at most {@code ttl} milliseconds (never longer than the token)
+ * and are dropped whenever the user or any role is changed.
+ */
+@Slf4j
+@Service
+public class AuthenticatedUserCache {
+
+    private static final char KEY_SEPARATOR = ':';
+
+    private final Map<String, CachedUser> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final int maxSize;
+    private final long ttl;
+
+    public AuthenticatedUserCache(@Value("${jwt.principal-cache.max-size:10000}") int maxSize,
+                                  @Value("${jwt.principal-cache.ttl:60000}") long ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    public User get(String subject, Date tokenExpiresAt, Supplier<User> loader){
+        if(tokenExpiresAt == null){
+            misses.incrementAndGet();
+            return loader.get();
+        }
+        long now = System.currentTimeMillis();
+        String key = subject + KEY_SEPARATOR + tokenExpiresAt.getTime();
+
+        CachedUser cachedUser = cache.get(key);
+        if(cachedUser != null && cachedUser.getExpiresAt() > now){
+            hits.incrementAndGet();
+            return cachedUser.getUser();
+        }
+        misses.incrementAndGet();
+
+        long generationBeforeLoad = generation.get();
+        User user = loader.get();
+        if(maxSize <= 0){
+            return user;
+        }
+
+        makeRoomForNewEntry(now);
+        CachedUser toCache = new CachedUser(user, Math.min(now + ttl, tokenExpiresAt.getTime()));
+        cache.put(key, toCache);
+        // user or role could have been changed while we were loading, in that case the entry may already be stale
+        if(generation.get() != generationBeforeLoad){
+            cache.remove(key, toCache);
+        }
+        return user;
+    }
+
+    public void invalidate(String subject){
+        generation.incrementAndGet();
+        String keyPrefix = subject + KEY_SEPARATOR;
+        cache.keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+
+    public void invalidateAll(){
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    public long getHitCount(){
+        return hits.get();
+    }
+
+    public long getMissCount(){
+        return misses.get();
+    }
+
+    public long getEvictionCount(){
+        return evictions.get();
+    }
+
+    public int size(){
+        return cache.size();
+    }
+
+    private void makeRoomForNewEntry(long now){
+        if(cache.size() < maxSize){
+            return;
+        }
+        cache.values().removeIf(cachedUser -> {
+            boolean expired = cachedUser.getExpiresAt() <= now;
+            if(expired){
+                evictions.incrementAndGet();
+            }
+            return expired;
+        });
+
+        Iterator<String> iterator = cache.keySet().iterator();
+        while(cache.size() >= maxSize && iterator.hasNext()){
+            iterator.next();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+        log.debug("Authenticated user cache is full, hits: {}, misses: {}, evictions: {}",
+                hits.get(), misses.get(), evictions.get());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class CachedUser {
+        private final User user;
+        private final long expiresAt;
+    }
+}
@@ -0,0 +1,31 @@
+package pl.wolniarskim.project_management.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pl.wolniarskim.project_management.models.User;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Entity listener registered on {@link User}, {@link pl.wolniarskim.project_management.models.Role} and
+ * {@link pl.wolniarskim.project_management.models.Organization}, drops cached principals whenever one of them is
+ * updated or removed, no matter which service did it.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthenticatedUserCacheInvalidator {
+
+    private final AuthenticatedUserCache authenticatedUserCache;
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity){
+        if(entity instanceof User){
+            authenticatedUserCache.invalidate(((User) entity).getUsername());
+        }
+        else{
+            authenticatedUserCache.invalidateAll();
+        }
+    }
+}
@@ -3,20 +3,32 @@ package pl.wolniarskim.project_management.services;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.mapstruct.Mapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import pl.wolniarskim.project_management.exceptions.PermissionDeniedException;
 import pl.wolniarskim.project_management.mappers.CommentMapper;
 import pl.wolniarskim.project_management.models.*;
+import pl.wolniarskim.project_management.models.DTO.CommentFilter;
+import pl.wolniarskim.project_management.models.DTO.CommentPage;
 import pl.wolniarskim.project_management.models.DTO.CommentReadModel;
+import pl.wolniarskim.project_management.models.DTO.CommentRow;
 import pl.wolniarskim.project_management.models.DTO.CommentWriteModel;
+import pl.wolniarskim.project_management.models.DTO.UserReadModel;
 import pl.wolniarskim.project_management.repositories.CommentRepository;
 import pl.wolniarskim.project_management.repositories.TaskRepository;
+import pl.wolniarskim.project_management.repositories.UserRepository;
+import pl.wolniarskim.project_management.utils.MentionParser;
 import pl.wolniarskim.project_management.utils.SecurityUtil;
 
+import javax.transaction.Transactional;
+
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static pl.wolniarskim.project_management.utils.SecurityUtil.getLoggedUser;
@@ -25,13 +37,18 @@ import static pl.wolniarskim.project_management.utils.SecurityUtil.getLoggedUser
 @Log4j2
 @RequiredArgsConstructor
 public class CommentService {
-    private static final String EMAIL_SPLIT_SIGN = "@@@@";
     private final CommentRepository commentRepository;
     private final TaskRepository taskRepository;
     private final NotificationService notificationService;
-    private final UserService userService;
+    private final UserRepository userRepository;
     private final TaskHistoryService taskHistoryService;
 
+    @Value("${comments.page-size:50}")
+    private int defaultPageSize;
+    @Value("${comments.max-page-size:500}")
+    private int maxPageSize;
+
+    @Transactional
     public CommentReadModel addComment(CommentWriteModel commentWriteModel){
         Task task = taskRepository.findById(commentWriteModel.getTaskId()).orElseThrow();
 
@@ -46,11 +63,12 @@ public class CommentService {
         comment.setCreatedTime(LocalDateTime.now());
         comment.setTask(task);
 
-        createNotificationIfNeeded(comment);
+        notifyMentionedUsers(comment);
 
         return CommentMapper.INSTANCE.toReadModel(commentRepository.save(comment));
     }
 
+    @Transactional
     public CommentReadModel editComment(long commentId, CommentWriteModel commentWriteModel, User user){
         Comment comment = commentRepository.findById(commentId).orElseThrow();
 
@@ -61,6 +79,7 @@ public class CommentService {
             throw new PermissionDeniedException();
         }
         comment.setContent(commentWriteModel.getComment());
+        notifyMentionedUsers(comment);
 
         return CommentMapper.INSTANCE.toReadModel(commentRepository.save(comment));
     }
@@ -78,31 +97,71 @@ public class CommentService {
         commentRepository.deleteById(commentId);
     }
 
-    public List<CommentReadModel> getCommentsForTask(long taskId){
-        Task task = taskRepository.findById(taskId).orElseThrow();
-        SecurityUtil.checkIfUserIsPartOfOrganization(task.getTaskGroup().getProject().getOrganization().getOrgId());
-        return commentRepository.getCommentByTask(task).stream()
-                .map(CommentMapper.INSTANCE::toReadModel)
+    /**
+     * Reads only the columns shown in a comment thread, author images are referenced by their hash.
+     */
+    public CommentPage getCommentsForTask(long taskId, CommentFilter filter){
+        long organizationId = taskRepository.findOrganizationIdByTaskId(taskId).orElseThrow();
+        SecurityUtil.checkIfUserIsPartOfOrganization(organizationId);
+
+        int pageSize = filter.getSize() == null || filter.getSize() <= 0 ? defaultPageSize : Math.min(filter.getSize(), maxPageSize);
+        // one more comment than requested is read to know if there is a next page
+        List<CommentRow> rows = filter.getCursor() == null
+                ? commentRepository.findFirstPageByTaskId(taskId, pageSize + 1)
+                : commentRepository.findPageByTaskIdAfter(taskId, filter.getCursor(), pageSize + 1);
+        List<CommentReadModel> comments = rows.stream()
+                .map(this::toReadModel)
                 .collect(Collectors.toList());
-    }
-
-    private void createNotificationIfNeeded(Comment comment){
 
-        String commentContent = comment.getContent();
-        while(commentContent.contains(EMAIL_SPLIT_SIGN)){
-            int firstEmailSign = commentContent.indexOf(EMAIL_SPLIT_SIGN);
-            String newString = commentContent.substring(firstEmailSign + 4);
-            int secondEmailSign = newString.indexOf(EMAIL_SPLIT_SIGN);
+        CommentPage page = new CommentPage();
+        if(comments.size() > pageSize){
+            comments = comments.subList(0, pageSize);
+            page.setNextCursor(comments.get(pageSize - 1).getId());
+        }
+        page.setComments(comments);
+        return page;
+    }
 
-            String email = newString.substring(0, secondEmailSign);
-            log.info("Searching for user with email {}", email);
-            User user = (User) userService.loadUserByUsername(email);
+    private CommentReadModel toReadModel(CommentRow row){
+        UserReadModel author = new UserReadModel();
+        author.setId(row.getAuthorId());
+        author.setEmail(row.getAuthorEmail());
+        author.setFirstName(row.getAuthorFirstName());
+        author.setLastName(row.getAuthorLastName());
+        author.setNick(row.getAuthorNick());
+        author.setProfileImageHash(row.getAuthorProfileImageHash());
+
+        CommentReadModel comment = new CommentReadModel();
+        comment.setId(row.getId());
+        comment.setContent(row.getContent());
+        comment.setCreatedTime(row.getCreatedTime());
+        comment.setCreatedBy(author);
+        return comment;
+    }
 
-            SecurityUtil.checkIfUserIsPartOfOrganization(user.getOrganization().getOrgId());
+    /**
+     * Resolves all users mentioned in the comment with one query and notifies the ones which were not mentioned
+     * in it before. Emails of unknown users are skipped.
+     */
+    private void notifyMentionedUsers(Comment comment){
+        Set<String> emails = MentionParser.findMentionedEmails(comment.getContent());
+        List<User> mentionedUsers = emails.isEmpty() ? List.of() : userRepository.findAllByEmailIn(emails);
+        if(mentionedUsers.size() < emails.size()){
+            log.info("Comment mentions {} emails, {} of them belong to users", emails.size(), mentionedUsers.size());
+        }
 
-            notificationService.createNotification(user, "You got mark in task comment -> " + comment.getTask().getId(), NotificationStatus.UNREAD);
+        Set<Long> mentionedUserIds = new HashSet<>();
+        List<User> newlyMentionedUsers = new ArrayList<>();
+        for(User mentionedUser : mentionedUsers){
+            SecurityUtil.checkIfUserIsPartOfOrganization(mentionedUser.getOrganization().getOrgId());
+            mentionedUserIds.add(mentionedUser.getId());
+            if(!comment.getMentionedUserIds().contains(mentionedUser.getId())){
+                newlyMentionedUsers.add(mentionedUser);
+            }
+        }
+        comment.getMentionedUserIds().retainAll(mentionedUserIds);
+        comment.getMentionedUserIds().addAll(mentionedUserIds);
 
-            commentContent = newString.substring(0, secondEmailSign);
-         }
+        notificationService.createNotification(newlyMentionedUsers, "You got mark in task comment -> " + comment.getTask().getId(), NotificationStatus.UNREAD);
     }
 }
@@ -0,0 +1,215 @@
+package pl.wolniarskim.project_management.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Compression for export files and values stored inside rows. Deflaters and inflaters hold native zlib memory, so up
+ * to {@code compression.pool-size} of each are kept and reused instead of being created for every call, data is
+ * compressed with {@code compression.level}. Export files are plain gzip, readable by any gzip tool, see
+ * {@link #compressingStream(OutputStream)}. Values stored inside rows use the shorter zlib format, see
+ * {@link #deflate(byte[])}.
+ */
+@Component
+public class CompressionCodec {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    // zlib header with the default compression level flag, which is informational only
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9c};
+    private static final int ZLIB_TRAILER_SIZE = 4;
+    private static final int FDICT = 0x20;
+
+    private final int level;
+    private final BlockingQueue<Deflater> deflaters;
+    private final BlockingQueue<Inflater> inflaters;
+
+    public CompressionCodec(@Value("${compression.level:6}") int level,
+                            @Value("${compression.pool-size:16}") int poolSize) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between -1 and 9, was " + level);
+        }
+        this.level = level;
+        this.deflaters = new ArrayBlockingQueue<>(poolSize);
+        this.inflaters = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * Deflates {@code data} into the zlib format written by {@code new Deflater()}, which has less overhead than gzip.
+     */
+    public byte[] deflate(byte[] data){
+        Deflater deflater = borrowDeflater();
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            output.write(ZLIB_HEADER, 0, ZLIB_HEADER.length);
+            byte[] buffer = new byte[Math.min(BUFFER_SIZE, data.length + 64)];
+            while (!deflater.finished()) {
+                int size = deflater.deflate(buffer);
+                output.write(buffer, 0, size);
+            }
+            Adler32 adler = new Adler32();
+            adler.update(data);
+            int checksum = (int) adler.getValue();
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                output.write(checksum >> shift & 0xff);
+            }
+            return output.toByteArray();
+        } finally {
+            releaseDeflater(deflater);
+        }
+    }
+
+    /**
+     * Inflates {@code length} bytes of zlib data starting at {@code offset}, as written by {@link #deflate(byte[])}
+     * or {@code new Deflater()}. Data needing a preset dictionary is rejected.
+     */
+    public byte[] inflate(byte[] data, int offset, int length) throws DataFormatException {
+        if (length < ZLIB_HEADER.length + ZLIB_TRAILER_SIZE
+                || (data[offset] & 0x0f) != Deflater.DEFLATED
+                || ((data[offset] & 0xff) << 8 | data[offset + 1] & 0xff) % 31 != 0) {
+            throw new DataFormatException("Not in zlib format");
+        }
+        if ((data[offset + 1] & FDICT) != 0) {
+            throw new DataFormatException("Preset dictionaries are not supported");
+        }
+        Inflater inflater = borrowInflater();
+        try {
+            inflater.setInput(data, offset + ZLIB_HEADER.length, length - ZLIB_HEADER.length);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(length * 4);
+            byte[] buffer = new byte[Math.min(BUFFER_SIZE, length * 4)];
+            while (!inflater.finished()) {
+                int size = inflater.inflate(buffer);
+                if (size == 0 && inflater.needsDictionary()) {
+                    throw new DataFormatException("Preset dictionaries are not supported");
+                }
+                if (size == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("Truncated zlib data");
+                }
+                output.write(buffer, 0, size);
+            }
+            int trailer = offset + length - inflater.getRemaining();
+            if (inflater.getRemaining() < ZLIB_TRAILER_SIZE) {
+                throw new DataFormatException("Truncated zlib data");
+            }
+            byte[] inflated = output.toByteArray();
+            Adler32 adler = new Adler32();
+            adler.update(inflated);
+            long checksum = (data[trailer] & 0xffL) << 24 | (data[trailer + 1] & 0xff) << 16
+                    | (data[trailer + 2] & 0xff) << 8 | data[trailer + 3] & 0xff;
+            if (checksum != adler.getValue()) {
+                throw new DataFormatException("Corrupt zlib data");
+            }
+            return inflated;
+        } finally {
+            releaseInflater(inflater);
+        }
+    }
+
+    /**
+     * Gzip stream writing to {@code target}, everything written to it is compressed. Closing it closes
+     * {@code target} and returns the deflater to the pool.
+     */
+    public OutputStream compressingStream(OutputStream target) throws IOException {
+        return new PooledGzipOutputStream(target);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+        Inflater inflater;
+        while ((inflater = inflaters.poll()) != null) {
+            inflater.end();
+        }
+    }
+
+    private Deflater borrowDeflater(){
+        Deflater deflater = deflaters.poll();
+        return deflater != null ? deflater : new Deflater(level, true);
+    }
+
+    private void releaseDeflater(Deflater deflater){
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private Inflater borrowInflater(){
+        Inflater inflater = inflaters.poll();
+        return inflater != null ? inflater : new Inflater(true);
+    }
+
+    private void releaseInflater(Inflater inflater){
+        inflater.reset();
+        if (!inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    private final class PooledGzipOutputStream extends DeflaterOutputStream {
+
+        private final CRC32 crc = new CRC32();
+        private boolean finished;
+        private boolean closed;
+
+        private PooledGzipOutputStream(OutputStream target) throws IOException {
+            super(target, borrowDeflater(), BUFFER_SIZE);
+            target.write(GZIP_HEADER);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            super.write(buffer, offset, length);
+            crc.update(buffer, offset, length);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            super.finish();
+            writeInt((int) crc.getValue());
+            writeInt((int) def.getBytesRead());
+            finished = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                releaseDeflater(def);
+            }
+        }
+
+        private void writeInt(int value) throws IOException {
+            out.write(value & 0xff);
+            out.write(value >> 8 & 0xff);
+            out.write(value >> 16 & 0xff);
+            out.write(value >> 24 & 0xff);
+        }
+    }
+}
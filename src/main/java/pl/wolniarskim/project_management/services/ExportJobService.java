@@ -0,0 +1,211 @@
+package pl.wolniarskim.project_management.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import pl.wolniarskim.project_management.exceptions.ExportNotReadyException;
+import pl.wolniarskim.project_management.exceptions.ExportQueueFullException;
+import pl.wolniarskim.project_management.mappers.ExportJobMapper;
+import pl.wolniarskim.project_management.models.DTO.ExportJobReadModel;
+import pl.wolniarskim.project_management.models.ExportJob;
+import pl.wolniarskim.project_management.models.ExportJobStatus;
+import pl.wolniarskim.project_management.models.Project;
+import pl.wolniarskim.project_management.repositories.ExportJobRepository;
+import pl.wolniarskim.project_management.repositories.ProjectRepository;
+import pl.wolniarskim.project_management.repositories.TaskTimeEntryRepository;
+import pl.wolniarskim.project_management.utils.SecurityUtil;
+
+import javax.annotation.PreDestroy;
+import javax.transaction.Transactional;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.TIME_ENTRY_READ_ALL;
+
+/**
+ * Time entry exports done in the background. Jobs are written as gzipped CSV files to {@code export.directory} by
+ * a bounded pool of {@code export.threads} threads, requests above {@code export.queue-capacity} waiting jobs are
+ * rejected. Requesting an export of a project whose exported data (time entries, task names and user emails) did
+ * not change since the last live job returns that job instead of starting a new one. Finished files are removed
+ * after {@code export.retention} milliseconds.
+ */
+@Slf4j
+@Service
+public class ExportJobService {
+
+    private static final String FILE_SUFFIX = ".csv.gz";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private final ExportJobRepository exportJobRepository;
+    private final ProjectRepository projectRepository;
+    private final TaskTimeEntryRepository taskTimeEntryRepository;
+    private final TaskTimeEntryService taskTimeEntryService;
+    private final CompressionCodec compressionCodec;
+    private final Path exportDirectory;
+    private final long retention;
+    private final ThreadPoolExecutor executor;
+
+    public ExportJobService(ExportJobRepository exportJobRepository,
+                            ProjectRepository projectRepository,
+                            TaskTimeEntryRepository taskTimeEntryRepository,
+                            TaskTimeEntryService taskTimeEntryService,
+                            CompressionCodec compressionCodec,
+                            @Value("${export.directory:${java.io.tmpdir}/project-management-exports}") String exportDirectory,
+                            @Value("${export.threads:2}") int threads,
+                            @Value("${export.queue-capacity:20}") int queueCapacity,
+                            @Value("${export.retention:86400000}") long retention) throws IOException {
+        this.exportJobRepository = exportJobRepository;
+        this.projectRepository = projectRepository;
+        this.taskTimeEntryRepository = taskTimeEntryRepository;
+        this.taskTimeEntryService = taskTimeEntryService;
+        this.compressionCodec = compressionCodec;
+        this.exportDirectory = Files.createDirectories(Paths.get(exportDirectory));
+        this.retention = retention;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("export-"));
+    }
+
+    public ExportJobReadModel requestExport(long projectId){
+        checkAccessToProject(projectId);
+
+        String snapshot = taskTimeEntryRepository.getExportSnapshot(projectId);
+        Optional<ExportJob> liveJob = exportJobRepository.findLiveJob(projectId, snapshot);
+        if(liveJob.isPresent()){
+            return ExportJobMapper.INSTANCE.toReadModel(liveJob.get());
+        }
+
+        ExportJob exportJob = new ExportJob();
+        exportJob.setProjectId(projectId);
+        exportJob.setSnapshot(snapshot);
+        exportJob.setStatus(ExportJobStatus.PENDING);
+        exportJob.setCreatedAt(LocalDateTime.now());
+        try {
+            exportJob = exportJobRepository.saveAndFlush(exportJob);
+        } catch (DataIntegrityViolationException e){
+            // the same export was requested concurrently, the unique index let only one of them in
+            return ExportJobMapper.INSTANCE.toReadModel(exportJobRepository.findLiveJob(projectId, snapshot).orElseThrow());
+        }
+
+        long exportJobId = exportJob.getId();
+        try {
+            executor.execute(() -> runExport(exportJobId));
+        } catch (RejectedExecutionException e){
+            finish(exportJob, ExportJobStatus.FAILED);
+            throw new ExportQueueFullException();
+        }
+        return ExportJobMapper.INSTANCE.toReadModel(exportJob);
+    }
+
+    public ExportJobReadModel getExportJob(long exportJobId){
+        return ExportJobMapper.INSTANCE.toReadModel(getAccessibleJob(exportJobId));
+    }
+
+    public Resource getExportFile(long exportJobId){
+        ExportJob exportJob = getAccessibleJob(exportJobId);
+        if(exportJob.getStatus() != ExportJobStatus.DONE){
+            throw new ExportNotReadyException();
+        }
+        return new FileSystemResource(getExportPath(exportJobId));
+    }
+
+    @Scheduled(fixedDelayString = "${export.cleanup-interval:3600000}")
+    public void removeExpiredExports(){
+        LocalDateTime finishedBefore = LocalDateTime.now().minus(retention, ChronoUnit.MILLIS);
+        for(ExportJob exportJob : exportJobRepository.findFinishedBefore(finishedBefore)){
+            try {
+                Files.deleteIfExists(getExportPath(exportJob.getId()));
+                exportJob.setStatus(ExportJobStatus.EXPIRED);
+                exportJobRepository.save(exportJob);
+            } catch (IOException e){
+                log.warn("Could not remove export file of job {}", exportJob.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Jobs which were waiting or running when the application stopped are never going to finish.
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void failUnfinishedExports(){
+        int failedJobs = exportJobRepository.failUnfinishedJobs();
+        if(failedJobs > 0){
+            log.warn("Marked {} unfinished export jobs as failed", failedJobs);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+
+    private void runExport(long exportJobId){
+        ExportJob exportJob = exportJobRepository.findById(exportJobId).orElseThrow();
+        exportJob.setStatus(ExportJobStatus.RUNNING);
+        exportJob = exportJobRepository.save(exportJob);
+
+        Path exportPath = getExportPath(exportJobId);
+        Path temporaryPath = exportPath.resolveSibling(exportPath.getFileName() + TEMPORARY_FILE_SUFFIX);
+        try {
+            try (Writer writer = new OutputStreamWriter(compressionCodec.compressingStream(Files.newOutputStream(temporaryPath)), StandardCharsets.UTF_8)) {
+                taskTimeEntryService.writeTimeEntriesCsv(writer, exportJob.getProjectId());
+            }
+            Files.move(temporaryPath, exportPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finish(exportJob, ExportJobStatus.DONE);
+        } catch (IOException | RuntimeException e){
+            log.error("Export job {} failed", exportJobId, e);
+            deleteQuietly(temporaryPath);
+            finish(exportJob, ExportJobStatus.FAILED);
+        }
+    }
+
+    private void finish(ExportJob exportJob, ExportJobStatus status){
+        exportJob.setStatus(status);
+        exportJob.setFinishedAt(LocalDateTime.now());
+        exportJobRepository.save(exportJob);
+    }
+
+    private ExportJob getAccessibleJob(long exportJobId){
+        ExportJob exportJob = exportJobRepository.findById(exportJobId).orElseThrow();
+        checkAccessToProject(exportJob.getProjectId());
+        return exportJob;
+    }
+
+    private void checkAccessToProject(long projectId){
+        Project project = projectRepository.findById(projectId).orElseThrow();
+        SecurityUtil.checkIfUserIsPartOfOrganization(project.getOrganization().getOrgId());
+        SecurityUtil.checkUserPermission(TIME_ENTRY_READ_ALL);
+    }
+
+    private Path getExportPath(long exportJobId){
+        return exportDirectory.resolve(exportJobId + FILE_SUFFIX);
+    }
+
+    private static void deleteQuietly(Path path){
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e){
+            log.warn("Could not remove {}", path, e);
+        }
+    }
+}
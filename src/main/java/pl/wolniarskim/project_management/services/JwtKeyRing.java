@@ -0,0 +1,68 @@
+package pl.wolniarskim.project_management.services;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.wolniarskim.project_management.utils.ThreadLocalHmacAlgorithm;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Signing key and verifiers built once at startup. Tokens are signed with the active key and carry its id in the
+ * {@code kid} header, previous keys listed as {@code kid=secret} in {@code jwt.previous-keys} are still accepted,
+ * so the secret can be rotated without logging everybody out.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final String KEY_ID_SEPARATOR = "=";
+
+    private final String activeKeyId;
+    private final ThreadLocalHmacAlgorithm signingAlgorithm;
+    private final Map<String, JWTVerifier> verifiers;
+
+    public JwtKeyRing(@Value("${jwt.secret}") String secret,
+                      @Value("${jwt.key-id:default}") String activeKeyId,
+                      @Value("${jwt.previous-keys:}") List<String> previousKeys) {
+        this.activeKeyId = activeKeyId;
+        this.signingAlgorithm = new ThreadLocalHmacAlgorithm(activeKeyId, secret);
+
+        Map<String, JWTVerifier> keyVerifiers = new HashMap<>();
+        keyVerifiers.put(activeKeyId, JWT.require(signingAlgorithm).build());
+        for (String previousKey : previousKeys) {
+            if (previousKey.isBlank()) {
+                continue;
+            }
+            int separatorIndex = previousKey.indexOf(KEY_ID_SEPARATOR);
+            if (separatorIndex <= 0) {
+                throw new IllegalArgumentException("Previous jwt keys have to be defined as kid=secret");
+            }
+            String keyId = previousKey.substring(0, separatorIndex).trim();
+            String keySecret = previousKey.substring(separatorIndex + 1);
+            keyVerifiers.putIfAbsent(keyId, JWT.require(new ThreadLocalHmacAlgorithm(keyId, keySecret)).build());
+        }
+        this.verifiers = Collections.unmodifiableMap(keyVerifiers);
+    }
+
+    public String sign(JWTCreator.Builder token) {
+        return token.sign(signingAlgorithm);
+    }
+
+    public DecodedJWT verify(String token) throws JWTVerificationException {
+        DecodedJWT decodedToken = JWT.decode(token);
+        // tokens issued before key ids were introduced have no kid and are signed with the active secret
+        String keyId = decodedToken.getKeyId() == null ? activeKeyId : decodedToken.getKeyId();
+        JWTVerifier verifier = verifiers.get(keyId);
+        if (verifier == null) {
+            throw new JWTVerificationException("Unknown signing key " + keyId);
+        }
+        return verifier.verify(decodedToken);
+    }
+}
@@ -1,7 +1,7 @@
 package pl.wolniarskim.project_management.services;
 
 import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,23 +27,21 @@ public class JwtService {
     private static final String ROLE_CLAIM_NAME = "roles";
     private static final String ORG_ID_CLAIM_NAME = "orgId";
     private final UserDetailsService userDetailsService;
-    @Value("${jwt.secret}")
-    private String secret;
+    private final AuthenticatedUserCache authenticatedUserCache;
+    private final JwtKeyRing jwtKeyRing;
 
     @Value("${jwt.expirationTime}")
     private long expirationTime;
 
     public TokensResponse createTokens(HttpServletRequest request, User user){
-        String accessToken = JWT.create()
+        String accessToken = jwtKeyRing.sign(JWT.create()
                 .withSubject(user.getUsername())
                 .withExpiresAt(new Date(System.currentTimeMillis() + expirationTime))
-                .withIssuer(request.getRequestURL().toString())
-                .sign(Algorithm.HMAC256(secret));
-        String refreshToken = JWT.create()
+                .withIssuer(request.getRequestURL().toString()));
+        String refreshToken = jwtKeyRing.sign(JWT.create()
                 .withSubject(user.getUsername())
                 .withExpiresAt(new Date(System.currentTimeMillis() + expirationTime * 20))
-                .withIssuer(request.getRequestURL().toString())
-                .sign(Algorithm.HMAC256(secret));
+                .withIssuer(request.getRequestURL().toString()));
         return new TokensResponse(accessToken,
                 expirationTime,
                 refreshToken,
@@ -53,9 +51,7 @@ public class JwtService {
     public TokensResponse refreshTokens(HttpServletRequest request) throws IOException {
         String authorization = request.getHeader(TOKEN_HEADER);
         if (authorization != null && authorization.startsWith(TOKEN_PREFIX)) {
-            String userName = JWT.require(Algorithm.HMAC256(secret))
-                    .build()
-                    .verify(authorization.replace(TOKEN_PREFIX, ""))
+            String userName = jwtKeyRing.verify(authorization.replace(TOKEN_PREFIX, ""))
                     .getSubject();
             if (userName != null) {
                 User user = (User) userDetailsService.loadUserByUsername(userName);
@@ -68,12 +64,11 @@ public class JwtService {
     public UsernamePasswordAuthenticationToken verifyToken(HttpServletRequest request){
         String token = request.getHeader(TOKEN_HEADER);
         if (token != null && token.startsWith(TOKEN_PREFIX)) {
-            String userName = JWT.require(Algorithm.HMAC256(secret))
-                    .build()
-                    .verify(token.replace(TOKEN_PREFIX, ""))
-                    .getSubject();
+            DecodedJWT decodedToken = jwtKeyRing.verify(token.replace(TOKEN_PREFIX, ""));
+            String userName = decodedToken.getSubject();
             if (userName != null) {
-                User user = (User) userDetailsService.loadUserByUsername(userName);
+                User user = authenticatedUserCache.get(userName, decodedToken.getExpiresAt(),
+                        () -> (User) userDetailsService.loadUserByUsername(userName));
                 return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
             }
         }
@@ -0,0 +1,240 @@
+package pl.wolniarskim.project_management.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.wolniarskim.project_management.models.DTO.NotificationOutboxStats;
+import pl.wolniarskim.project_management.models.DTO.NotificationReadModel;
+import pl.wolniarskim.project_management.models.NotificationStatus;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.ALLOW_ALL;
+import static pl.wolniarskim.project_management.utils.SecurityUtil.checkUserPermission;
+
+/**
+ * Drains {@code notification_outbox} into {@code notifications}. Every run takes at most
+ * {@code notifications.outbox.max-batches-per-run} batches of {@code notifications.outbox.batch-size} entries, each
+ * batch is copied into notifications with one statement and removed from the outbox in the same transaction. Rows are locked with
+ * {@code skip locked}, so more than one instance can dispatch at the same time. When a batch fails its entries are
+ * dispatched one by one and failing ones are retried with exponential backoff, after
+ * {@code notifications.outbox.max-attempts} attempts they stay in the outbox marked as failed.
+ */
+@Slf4j
+@Service
+public class NotificationDispatcher {
+
+    private static final String SELECT_DUE_ENTRIES = "select id, recipient_ids, notification_content, status, created_at, attempts " +
+            "from notification_outbox where failed_at is null and next_attempt_at <= now() " +
+            "order by next_attempt_at, id limit ? for update skip locked";
+    private static final String SELECT_ENTRY = "select id, recipient_ids, notification_content, status, created_at, attempts " +
+            "from notification_outbox where id = ? and failed_at is null for update skip locked";
+    // one statement for the whole batch which also bumps unread counters of the recipients,
+    // users removed in the meantime are skipped instead of failing it
+    private static final String INSERT_NOTIFICATIONS = "with inserted as (" +
+            "insert into notifications(status, notification_content, related_to_id) " +
+            "select e.status, e.notification_content, u.id from notification_outbox e join users u on u.id = any(e.recipient_ids) " +
+            "where e.id = any(?) order by e.id, u.id " +
+            "returning id, status, notification_content, related_to_id), " +
+            "counted as (" +
+            "insert into notification_counters(user_id, unread_count) " +
+            "select related_to_id, count(*) from inserted where status = 'UNREAD' group by related_to_id " +
+            "on conflict (user_id) do update set unread_count = notification_counters.unread_count + excluded.unread_count) " +
+            "select id, status, notification_content, related_to_id from inserted order by id";
+    private static final String DELETE_ENTRIES = "delete from notification_outbox where id = any(?)";
+    private static final String POSTPONE_ENTRY = "update notification_outbox set attempts = ?, next_attempt_at = ?, last_error = ? where id = ?";
+    private static final String FAIL_ENTRY = "update notification_outbox set attempts = ?, failed_at = now(), last_error = ? where id = ?";
+    private static final String SELECT_STATS = "select count(*) filter (where failed_at is null) as pending, " +
+            "count(*) filter (where failed_at is not null) as failed, " +
+            "min(created_at) filter (where failed_at is null) as oldest from notification_outbox";
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationSubscriberRegistry subscriberRegistry;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int maxAttempts;
+    private final long retryDelay;
+    private final long lagWarningThreshold;
+    private final AtomicLong dispatchedTotal = new AtomicLong();
+    private final AtomicLong retriedTotal = new AtomicLong();
+    private final AtomicLong lastDispatchLag = new AtomicLong();
+
+    public NotificationDispatcher(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  NotificationSubscriberRegistry subscriberRegistry,
+                                  @Value("${notifications.outbox.batch-size:500}") int batchSize,
+                                  @Value("${notifications.outbox.max-batches-per-run:20}") int maxBatchesPerRun,
+                                  @Value("${notifications.outbox.max-attempts:10}") int maxAttempts,
+                                  @Value("${notifications.outbox.retry-delay:1000}") long retryDelay,
+                                  @Value("${notifications.outbox.lag-warning:60000}") long lagWarningThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.subscriberRegistry = subscriberRegistry;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.lagWarningThreshold = lagWarningThreshold;
+    }
+
+    /**
+     * Dispatches due outbox entries and returns how many of them were delivered. Stops early when the outbox is
+     * drained, what is left after the last batch waits for the next run. Open notification streams of the recipients
+     * get the notifications once they are committed.
+     */
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-interval:1000}")
+    public int dispatch(){
+        int dispatched = 0;
+        for(int batch = 0; batch < maxBatchesPerRun; batch++){
+            List<OutboxEntry> entries = new ArrayList<>();
+            try {
+                List<DeliveredNotification> delivered = Objects.requireNonNull(transactionTemplate.execute(status -> {
+                    entries.addAll(jdbcTemplate.query(SELECT_DUE_ENTRIES, OUTBOX_ENTRY_MAPPER, batchSize));
+                    return deliver(entries);
+                }));
+                publish(delivered);
+                int batchDispatched = entries.size();
+                dispatched += batchDispatched;
+                if(batchDispatched < batchSize){
+                    break;
+                }
+            } catch (DataAccessException | TransactionException e){
+                log.warn("Dispatching batch of {} notification outbox entries failed, retrying them one by one", entries.size(), e);
+                dispatched += dispatchOneByOne(entries);
+                break;
+            }
+        }
+        return dispatched;
+    }
+
+    public NotificationOutboxStats getStats(){
+        checkUserPermission(ALLOW_ALL);
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(SELECT_STATS);
+        Timestamp oldest = (Timestamp) row.get("oldest");
+        long oldestPendingAge = oldest == null ? 0 : Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).toMillis();
+        return new NotificationOutboxStats(
+                ((Number) row.get("pending")).longValue(),
+                ((Number) row.get("failed")).longValue(),
+                oldestPendingAge,
+                lastDispatchLag.get(),
+                dispatchedTotal.get(),
+                retriedTotal.get());
+    }
+
+    private int dispatchOneByOne(List<OutboxEntry> entries){
+        int dispatched = 0;
+        for(OutboxEntry entry : entries){
+            try {
+                List<OutboxEntry> locked = new ArrayList<>();
+                List<DeliveredNotification> delivered = Objects.requireNonNull(transactionTemplate.execute(status -> {
+                    locked.addAll(jdbcTemplate.query(SELECT_ENTRY, OUTBOX_ENTRY_MAPPER, entry.getId()));
+                    return deliver(locked);
+                }));
+                publish(delivered);
+                dispatched += locked.size();
+            } catch (DataAccessException | TransactionException e){
+                postpone(entry, e);
+            }
+        }
+        return dispatched;
+    }
+
+    private List<DeliveredNotification> deliver(List<OutboxEntry> entries){
+        if(entries.isEmpty()){
+            return List.of();
+        }
+        Long[] ids = entries.stream().map(OutboxEntry::getId).toArray(Long[]::new);
+        List<DeliveredNotification> delivered = jdbcTemplate.query(INSERT_NOTIFICATIONS,
+                statement -> statement.setArray(1, statement.getConnection().createArrayOf("bigint", ids)),
+                DELIVERED_NOTIFICATION_MAPPER);
+        jdbcTemplate.update(DELETE_ENTRIES, statement ->
+                statement.setArray(1, statement.getConnection().createArrayOf("bigint", ids)));
+
+        LocalDateTime oldestEntry = entries.stream()
+                .map(OutboxEntry::getCreatedAt)
+                .min(LocalDateTime::compareTo)
+                .orElseThrow();
+        long lag = Duration.between(oldestEntry, LocalDateTime.now()).toMillis();
+        lastDispatchLag.set(lag);
+        dispatchedTotal.addAndGet(entries.size());
+        if(lag > lagWarningThreshold){
+            log.warn("Notification outbox is lagging {} ms behind", lag);
+        }
+        return delivered;
+    }
+
+    private void publish(List<DeliveredNotification> delivered){
+        for(DeliveredNotification notification : delivered){
+            subscriberRegistry.publish(notification.getUserId(), notification.getNotification());
+        }
+    }
+
+    private void postpone(OutboxEntry entry, NestedRuntimeException cause){
+        int attempts = entry.getAttempts() + 1;
+        String error = Objects.toString(cause.getMostSpecificCause().getMessage(), cause.getClass().getName());
+        error = error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH));
+        if(attempts >= maxAttempts){
+            log.error("Giving up notification outbox entry {} after {} attempts", entry.getId(), attempts, cause);
+            jdbcTemplate.update(FAIL_ENTRY, attempts, error, entry.getId());
+            return;
+        }
+        long delay = retryDelay << Math.min(attempts - 1, 20);
+        jdbcTemplate.update(POSTPONE_ENTRY, attempts, Timestamp.valueOf(LocalDateTime.now().plusNanos(delay * 1_000_000)),
+                error, entry.getId());
+        retriedTotal.incrementAndGet();
+    }
+
+    private static final RowMapper<OutboxEntry> OUTBOX_ENTRY_MAPPER = (resultSet, rowNum) -> new OutboxEntry(
+            resultSet.getLong("id"),
+            (Long[]) resultSet.getArray("recipient_ids").getArray(),
+            resultSet.getString("notification_content"),
+            resultSet.getString("status"),
+            resultSet.getTimestamp("created_at").toLocalDateTime(),
+            resultSet.getInt("attempts"));
+
+    private static final RowMapper<DeliveredNotification> DELIVERED_NOTIFICATION_MAPPER = (resultSet, rowNum) -> {
+        NotificationReadModel notification = new NotificationReadModel();
+        notification.setId(resultSet.getLong("id"));
+        notification.setStatus(NotificationStatus.valueOf(resultSet.getString("status")));
+        notification.setNotificationContent(resultSet.getString("notification_content"));
+        return new DeliveredNotification(resultSet.getLong("related_to_id"), notification);
+    };
+
+    @Getter
+    @AllArgsConstructor
+    private static class DeliveredNotification {
+        private final long userId;
+        private final NotificationReadModel notification;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class OutboxEntry {
+        private final long id;
+        private final Long[] recipientIds;
+        private final String content;
+        private final String status;
+        private final LocalDateTime createdAt;
+        private final int attempts;
+    }
+}
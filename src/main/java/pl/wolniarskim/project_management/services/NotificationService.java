@@ -1,48 +1,143 @@
 package pl.wolniarskim.project_management.services;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import pl.wolniarskim.project_management.exceptions.PermissionDeniedException;
 import pl.wolniarskim.project_management.mappers.NotificationMapper;
+import pl.wolniarskim.project_management.models.DTO.NotificationFilter;
+import pl.wolniarskim.project_management.models.DTO.NotificationPage;
 import pl.wolniarskim.project_management.models.DTO.NotificationReadModel;
-import pl.wolniarskim.project_management.models.Notification;
+import pl.wolniarskim.project_management.models.NotificationCounter;
 import pl.wolniarskim.project_management.models.NotificationStatus;
 import pl.wolniarskim.project_management.models.User;
+import pl.wolniarskim.project_management.repositories.NotificationCounterRepository;
 import pl.wolniarskim.project_management.repositories.NotificationRepository;
-import pl.wolniarskim.project_management.utils.SecurityUtil;
 
+import javax.transaction.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
+
+    private static final String INSERT_OUTBOX_ENTRY = "insert into notification_outbox(recipient_ids, notification_content, status) values (?, ?, ?)";
+
     private final NotificationRepository notificationRepository;
+    private final NotificationCounterRepository notificationCounterRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${notifications.page-size:50}")
+    private int defaultPageSize;
+    @Value("${notifications.max-page-size:500}")
+    private int maxPageSize;
+
+    public NotificationPage getNotifications(User user, NotificationFilter filter){
+        int pageSize = filter.getSize() == null || filter.getSize() <= 0 ? defaultPageSize : Math.min(filter.getSize(), maxPageSize);
+        long cursor = filter.getCursor() == null ? Long.MAX_VALUE : filter.getCursor();
+        boolean filtered = filter.getStatus() != null;
+        NotificationStatus status = filtered ? filter.getStatus() : NotificationStatus.UNREAD;
 
-    public List<NotificationReadModel> getAllNotifications(User user){
-        return notificationRepository.getAllByRelatedTo(user).stream()
+        // one more notification than requested is read to know if there is a next page
+        List<NotificationReadModel> notifications = notificationRepository.findPage(user.getId(), cursor, filtered, status,
+                        PageRequest.of(0, pageSize + 1)).stream()
                 .map(NotificationMapper.INSTANCE::toReadModel)
                 .collect(Collectors.toList());
+
+        NotificationPage page = new NotificationPage();
+        if(notifications.size() > pageSize){
+            notifications = notifications.subList(0, pageSize);
+            page.setNextCursor(notifications.get(pageSize - 1).getId());
+        }
+        page.setNotifications(notifications);
+        return page;
+    }
+
+    public long getUnreadCount(User user){
+        return notificationCounterRepository.findById(user.getId())
+                .map(NotificationCounter::getUnreadCount)
+                .orElse(0L);
     }
 
     public void createNotification(User user, String notificationContent, NotificationStatus status){
-        Notification notification = new Notification();
-        notification.setRelatedTo(user);
-        notification.setNotificationContent(notificationContent);
-        notification.setStatus(status);
-        notificationRepository.save(notification);
+        createNotification(List.of(user), notificationContent, status);
+    }
+
+    /**
+     * Records the notification in the outbox as part of the caller's transaction, {@link NotificationDispatcher}
+     * creates the notifications of all users later. Costs one insert no matter how many users are notified.
+     */
+    public void createNotification(Collection<User> users, String notificationContent, NotificationStatus status){
+        if(users.isEmpty()){
+            return;
+        }
+        Long[] recipientIds = users.stream()
+                .map(User::getId)
+                .distinct()
+                .toArray(Long[]::new);
+        jdbcTemplate.update(INSERT_OUTBOX_ENTRY, statement -> {
+            statement.setArray(1, statement.getConnection().createArrayOf("bigint", recipientIds));
+            statement.setString(2, notificationContent);
+            statement.setString(3, status.name());
+        });
     }
 
+    @Transactional
     public void updateNotificationStatus(long notificationId, User user){
-        notificationRepository.findById(notificationId).ifPresent(
-                notification -> {
-                    if(notification.getRelatedTo().getId() != user.getId()){
-                        throw new PermissionDeniedException();
+        if(markAsRead(user, List.of(notificationId)) == 0){
+            notificationRepository.findById(notificationId).ifPresent(
+                    notification -> {
+                        if(notification.getRelatedTo().getId() != user.getId()){
+                            throw new PermissionDeniedException();
+                        }
                     }
-                    notification.setStatus(NotificationStatus.READ);
+            );
+        }
+    }
+
+    /**
+     * Marks given unread notifications of the user as read with one update, ids of other users' notifications
+     * are ignored. Returns number of notifications which were marked.
+     */
+    @Transactional
+    public int markAsRead(User user, Collection<Long> notificationIds){
+        if(notificationIds.isEmpty()){
+            return 0;
+        }
+        return decreaseUnreadCount(user, notificationRepository.markAsRead(user.getId(), notificationIds));
+    }
+
+    @Transactional
+    public int markAllAsRead(User user){
+        return decreaseUnreadCount(user, notificationRepository.markAllAsRead(user.getId()));
+    }
+
+    /**
+     * Recounts unread notifications of every user and returns number of counters which were out of sync.
+     */
+    @Scheduled(cron = "${notifications.counters.reconciliation.cron:0 30 3 * * *}")
+    @Transactional
+    public int reconcileUnreadCounts(){
+        notificationCounterRepository.lockForRebuild();
+        int drifted = notificationCounterRepository.rebuildUnreadCounts()
+                + notificationCounterRepository.resetCountsWithoutUnreadNotifications();
+        if(drifted > 0){
+            log.warn("Unread notification counts rebuilt, {} counters were out of sync", drifted);
+        }
+        return drifted;
+    }
 
-                    notificationRepository.save(notification);
-                }
-        );
+    private int decreaseUnreadCount(User user, int markedAsRead){
+        if(markedAsRead > 0){
+            notificationCounterRepository.addToUnreadCount(user.getId(), -markedAsRead);
+        }
+        return markedAsRead;
     }
 }
@@ -0,0 +1,239 @@
+package pl.wolniarskim.project_management.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.wolniarskim.project_management.models.DTO.NotificationReadModel;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open notification streams of logged users. Events are not written by the thread publishing them, every connection
+ * has its own queue of at most {@code notifications.stream.buffer-size} events drained by a pool of
+ * {@code notifications.stream.threads} sender threads. A connection is closed when its queue overflows or when
+ * writing one event to it takes longer than {@code notifications.stream.write-timeout} milliseconds, the client
+ * reconnects and reads what it missed from {@code GET /api/notifications}. A sender thread stuck in such a write
+ * is replaced by a new one until the write fails, so stalled clients do not hold up the streams of others. Idle
+ * connections get a heartbeat comment every {@code notifications.stream.heartbeat} milliseconds, so proxies do not
+ * drop them.
+ */
+@Slf4j
+@Service
+public class NotificationSubscriberRegistry {
+
+    private static final String NOTIFICATION_EVENT = "notification";
+    private static final long NOT_SENDING = 0;
+    private static final long STALLED = Long.MIN_VALUE;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor sender;
+    private final int threads;
+    private final AtomicInteger stalledSenders = new AtomicInteger();
+    private final int bufferSize;
+    private final int maxConnectionsPerUser;
+    private final long timeout;
+    private final long writeTimeoutNanos;
+
+    public NotificationSubscriberRegistry(@Value("${notifications.stream.threads:2}") int threads,
+                                          @Value("${notifications.stream.buffer-size:100}") int bufferSize,
+                                          @Value("${notifications.stream.max-connections-per-user:5}") int maxConnectionsPerUser,
+                                          @Value("${notifications.stream.timeout:1800000}") long timeout,
+                                          @Value("${notifications.stream.write-timeout:5000}") long writeTimeout) {
+        this.sender = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("notification-stream-"));
+        this.threads = threads;
+        this.bufferSize = bufferSize;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.timeout = timeout;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeout);
+    }
+
+    /**
+     * Opens a stream for the user, closes the oldest stream of the user when there are too many of them.
+     */
+    public SseEmitter subscribe(long userId){
+        return subscribe(userId, new SseEmitter(timeout));
+    }
+
+    SseEmitter subscribe(long userId, SseEmitter emitter){
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        Set<Subscriber> userSubscribers = subscribers.compute(userId, (id, current) -> {
+            Set<Subscriber> updated = current == null ? new CopyOnWriteArraySet<>() : current;
+            updated.add(subscriber);
+            return updated;
+        });
+        if(userSubscribers.size() > maxConnectionsPerUser){
+            userSubscribers.iterator().next().close();
+        }
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        return emitter;
+    }
+
+    public void publish(long userId, NotificationReadModel notification){
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if(userSubscribers == null){
+            return;
+        }
+        for(Subscriber subscriber : userSubscribers){
+            subscriber.offer(SseEmitter.event()
+                    .id(String.valueOf(notification.getId()))
+                    .name(NOTIFICATION_EVENT)
+                    .data(notification));
+        }
+    }
+
+    @Scheduled(fixedRateString = "${notifications.stream.heartbeat:25000}")
+    public void sendHeartbeats(){
+        subscribers.values().forEach(userSubscribers ->
+                userSubscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    /**
+     * Closes connections whose current write has been blocked for longer than the write timeout and lets the pool
+     * start a thread in place of each blocked sender.
+     */
+    @Scheduled(fixedDelayString = "${notifications.stream.write-timeout:5000}")
+    public void closeStalledStreams(){
+        long now = System.nanoTime();
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber -> {
+            long sendStartedAt = subscriber.sendStartedAt.get();
+            if(sendStartedAt != NOT_SENDING && sendStartedAt != STALLED && now - sendStartedAt > writeTimeoutNanos
+                    && subscriber.sendStartedAt.compareAndSet(sendStartedAt, STALLED)){
+                log.info("Closing notification stream of user {}, writing to it takes longer than {} ms",
+                        subscriber.userId, TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+                resizeSender(stalledSenders.incrementAndGet());
+                subscriber.close();
+            }
+        }));
+    }
+
+    public int getConnectionCount(){
+        return subscribers.values().stream()
+                .mapToInt(Set::size)
+                .sum();
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        List<Subscriber> open = new ArrayList<>();
+        subscribers.values().forEach(open::addAll);
+        open.forEach(Subscriber::close);
+        sender.shutdownNow();
+    }
+
+    private synchronized void resizeSender(int stalled){
+        int size = threads + stalled;
+        // the maximum may never be below the core size
+        if(size > sender.getMaximumPoolSize()){
+            sender.setMaximumPoolSize(size);
+            sender.setCorePoolSize(size);
+        } else {
+            sender.setCorePoolSize(size);
+            sender.setMaximumPoolSize(size);
+        }
+    }
+
+    private class Subscriber {
+        private final long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // System.nanoTime() when the current write started, NOT_SENDING or STALLED once it was given up on
+        private final AtomicLong sendStartedAt = new AtomicLong(NOT_SENDING);
+
+        private Subscriber(long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void offer(SseEmitter.SseEventBuilder event){
+            if(closed.get()){
+                return;
+            }
+            if(!queue.offer(event)){
+                log.info("Closing notification stream of user {}, {} events are waiting", userId, queue.size());
+                close();
+                return;
+            }
+            if(draining.compareAndSet(false, true)){
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain(){
+            do {
+                SseEmitter.SseEventBuilder event;
+                while(!closed.get() && (event = queue.poll()) != null){
+                    boolean sent = false;
+                    sendStartedAt.set(System.nanoTime());
+                    try {
+                        emitter.send(event);
+                        sent = true;
+                    } catch (IOException | IllegalStateException e){
+                        log.debug("Could not write to notification stream of user {}", userId, e);
+                    } finally {
+                        if(sendStartedAt.getAndSet(NOT_SENDING) == STALLED){
+                            resizeSender(stalledSenders.decrementAndGet());
+                        }
+                    }
+                    if(!sent){
+                        close();
+                        return;
+                    }
+                }
+                if(closed.get()){
+                    // the emitter could not be completed while the write was blocked
+                    complete();
+                    return;
+                }
+                draining.set(false);
+                // an event offered after the last poll but before the flag was cleared would wait for the next one
+            } while(!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void close(){
+            if(!closed.compareAndSet(false, true)){
+                return;
+            }
+            subscribers.computeIfPresent(userId, (id, current) -> {
+                current.remove(this);
+                return current.isEmpty() ? null : current;
+            });
+            queue.clear();
+            // completing waits for a running write to finish, the sender completes the emitter after it then
+            if(sendStartedAt.get() == NOT_SENDING){
+                complete();
+            }
+        }
+
+        private void complete(){
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e){
+                log.debug("Notification stream of user {} was already completed", userId);
+            }
+        }
+    }
+}
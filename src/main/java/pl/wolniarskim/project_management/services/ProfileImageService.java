@@ -0,0 +1,324 @@
+package pl.wolniarskim.project_management.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import pl.wolniarskim.project_management.exceptions.ProfileImageQueueFullException;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLConnection;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Content addressed store of profile images. An image is kept once in {@code profile-images.directory} under
+ * the SHA-256 of its bytes, users only keep that hash, so a stored file never changes and can be cached forever.
+ * Next to the original every image gets downscaled renditions for {@code profile-images.rendition-sizes}, they are
+ * made from a single decode of the upload on a pool of {@code profile-images.threads} threads. The directory has no
+ * default, it has to be persistent storage since the files are the only copy of newly uploaded images.
+ */
+@Slf4j
+@Service
+public class ProfileImageService {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final String SELECT_LEGACY_IMAGES = "select id, profile_image from users " +
+            "where profile_image is not null and profile_image_hash is null and id > ? order by id limit ?";
+    private static final String UPDATE_LEGACY_IMAGE = "update users set profile_image_hash = ? where id = ?";
+    private static final int LEGACY_BATCH_SIZE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path imageDirectory;
+    private final int[] renditionSizes;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+
+    public ProfileImageService(JdbcTemplate jdbcTemplate,
+                               @Value("${profile-images.directory}") String imageDirectory,
+                               @Value("${profile-images.rendition-sizes:32,64,256}") int[] renditionSizes,
+                               @Value("${profile-images.max-pixels:50000000}") long maxPixels,
+                               @Value("${profile-images.threads:2}") int threads,
+                               @Value("${profile-images.queue-capacity:30}") int queueCapacity) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.imageDirectory = Files.createDirectories(Paths.get(imageDirectory));
+        this.renditionSizes = Arrays.stream(renditionSizes).sorted().toArray();
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("profile-image-"));
+    }
+
+    /**
+     * Stores the image and its renditions unless the same bytes are already stored and returns its hash. Bytes which
+     * cannot be decoded as an image are stored without renditions.
+     */
+    public String store(byte[] image){
+        String hash = hash(image);
+        createRenditions(hash, image);
+        write(getPath(hash), image);
+        return hash;
+    }
+
+    /**
+     * File of the image with given hash, empty for hashes which are malformed or not stored.
+     */
+    public Optional<Path> find(String hash){
+        if(hash == null || !HASH_PATTERN.matcher(hash).matches()){
+            return Optional.empty();
+        }
+        Path path = getPath(hash);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Smallest rendition at least {@code size} pixels wide and high, the original when there is no such rendition.
+     */
+    public Optional<Path> find(String hash, int size){
+        Optional<Path> original = find(hash);
+        if(original.isEmpty()){
+            return original;
+        }
+        for(int renditionSize : renditionSizes){
+            if(renditionSize >= size){
+                Path rendition = getRenditionPath(hash, renditionSize);
+                if(Files.isRegularFile(rendition)){
+                    return Optional.of(rendition);
+                }
+            }
+        }
+        return original;
+    }
+
+    public Optional<String> getContentType(Path path){
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(path))) {
+            return Optional.ofNullable(URLConnection.guessContentTypeFromStream(inputStream));
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+
+    private void createRenditions(String hash, byte[] image){
+        if(Arrays.stream(renditionSizes).allMatch(size -> Files.exists(getRenditionPath(hash, size)))){
+            return;
+        }
+        BufferedImage decoded = decode(image);
+        if(decoded == null){
+            return;
+        }
+        List<Future<?>> renditions = new ArrayList<>();
+        try {
+            for(int size : renditionSizes){
+                renditions.add(executor.submit(() -> write(getRenditionPath(hash, size), encode(resize(decoded, size)))));
+            }
+        } catch (RejectedExecutionException e){
+            renditions.forEach(rendition -> rendition.cancel(true));
+            throw new ProfileImageQueueFullException();
+        }
+        for(Future<?> rendition : renditions){
+            try {
+                rendition.get();
+            } catch (ExecutionException e){
+                // the original is served instead of a missing rendition
+                log.warn("Could not create rendition of profile image {}", hash, e.getCause());
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while creating renditions of profile image " + hash, e);
+            }
+        }
+    }
+
+    /**
+     * Decodes only as many pixels as the largest rendition needs, large photos are subsampled while they are read.
+     */
+    private BufferedImage decode(byte[] image){
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(image))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if(!readers.hasNext()){
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if((long) width * height > maxPixels){
+                    log.info("Not creating renditions of profile image with {}x{} pixels", width, height);
+                    return null;
+                }
+                int largestSize = renditionSizes[renditionSizes.length - 1];
+                int subsampling = Math.max(1, Math.max(width, height) / (largestSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e){
+            log.debug("Profile image could not be decoded", e);
+            return null;
+        }
+    }
+
+    // halves the image until it fits, a single bilinear step from a large image drops most of its pixels
+    private static BufferedImage resize(BufferedImage source, int size){
+        double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while(width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    // transparent images stay PNG, everything else is a photo and is much smaller as JPEG
+    private static byte[] encode(BufferedImage image){
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, image.getColorModel().hasAlpha() ? "png" : "jpg", output);
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private void write(Path path, byte[] content){
+        if(Files.exists(path)){
+            return;
+        }
+        Path temporaryPath = path.resolveSibling(path.getFileName() + "." + Thread.currentThread().getId() + TEMPORARY_FILE_SUFFIX);
+        try {
+            Files.createDirectories(path.getParent());
+            Files.write(temporaryPath, content);
+            Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e){
+            // stored concurrently, the content is the same, unless something else is in the way
+            if(!Files.isRegularFile(path)){
+                throw new UncheckedIOException(e);
+            }
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(temporaryPath);
+            } catch (IOException e){
+                log.warn("Could not remove temporary profile image {}", temporaryPath, e);
+            }
+        }
+    }
+
+    /**
+     * Copies images kept in {@code users.profile_image} before the store existed into the store. The column is left
+     * as it is, a later migration drops it once the stored files are verified. An image which cannot be stored is
+     * logged and skipped, it is tried again on the next start.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyImages(){
+        int migrated = 0;
+        int failed = 0;
+        long lastId = 0;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbcTemplate.queryForList(SELECT_LEGACY_IMAGES, lastId, LEGACY_BATCH_SIZE);
+            for(Map<String, Object> row : rows){
+                lastId = ((Number) row.get("id")).longValue();
+                try {
+                    String hash = store(decodeLegacyImage((byte[]) row.get("profile_image")));
+                    jdbcTemplate.update(UPDATE_LEGACY_IMAGE, hash, lastId);
+                    migrated++;
+                } catch (RuntimeException e){
+                    log.warn("Could not store profile image of user {}", lastId, e);
+                    failed++;
+                }
+            }
+        } while(rows.size() == LEGACY_BATCH_SIZE);
+        if(migrated > 0 || failed > 0){
+            log.info("Copied {} profile images to {}, {} failed", migrated, imageDirectory, failed);
+        }
+    }
+
+    // images were kept as Base64 text first and as raw bytes later
+    private static byte[] decodeLegacyImage(byte[] stored){
+        try {
+            return Base64.getDecoder().decode(stored);
+        } catch (IllegalArgumentException e){
+            return stored;
+        }
+    }
+
+    private Path getPath(String hash){
+        return imageDirectory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path getRenditionPath(String hash, int size){
+        return getPath(hash).resolveSibling(hash + "-" + size);
+    }
+
+    private static String hash(byte[] image){
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(image);
+            StringBuilder hash = new StringBuilder(digest.length * 2);
+            for(byte b : digest){
+                hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,22 +1,30 @@
 package pl.wolniarskim.project_management.services;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import pl.wolniarskim.project_management.mappers.ProjectMapper;
 import pl.wolniarskim.project_management.models.*;
 import pl.wolniarskim.project_management.models.DTO.*;
 import pl.wolniarskim.project_management.repositories.ProjectRepository;
 import pl.wolniarskim.project_management.repositories.ProjectUserRepository;
+import pl.wolniarskim.project_management.repositories.TaskGroupRepository;
+import pl.wolniarskim.project_management.repositories.TaskRepository;
 import pl.wolniarskim.project_management.repositories.UserRepository;
 import pl.wolniarskim.project_management.utils.SecurityUtil;
 
 import javax.transaction.Transactional;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.*;
-import static pl.wolniarskim.project_management.models.TaskPriority.*;
 import static pl.wolniarskim.project_management.utils.SecurityUtil.getLoggedUser;
 
 @Service
@@ -25,31 +33,71 @@ public class ProjectService {
 
     private final ProjectRepository projectRepository;
     private final ProjectUserRepository projectUserRepository;
+    private final TaskGroupRepository taskGroupRepository;
+    private final TaskRepository taskRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
 
-    public List<SimpleProjectReadModel> getAllProject(){
+    @Value("${projects.page-size:50}")
+    private int defaultPageSize;
+    @Value("${projects.max-page-size:500}")
+    private int maxPageSize;
+
+    /**
+     * Reads only the columns shown in the project list together with the owner, in one query.
+     */
+    public ProjectPage getAllProject(ProjectFilter filter){
         SecurityUtil.checkUserPermission(PROJECT_READ);
 
         User loggedUser = getLoggedUser();
-        if(loggedUser.getMainRole().getName().equals("SUPER_ADMIN")){
-            return projectRepository.findByOrganizationOrgId(loggedUser.getOrganization().getOrgId()).stream()
-                    .map(ProjectMapper.INSTANCE::fromProject)
-                    .collect(Collectors.toList());
-        }
-
-        return projectRepository.findAllByUserId(loggedUser.getId()).stream()
-                .map(ProjectMapper.INSTANCE::fromProject)
+        int pageSize = filter.getSize() == null || filter.getSize() <= 0 ? defaultPageSize : Math.min(filter.getSize(), maxPageSize);
+        long cursor = filter.getCursor() == null ? Long.MAX_VALUE : filter.getCursor();
+        boolean filtered = filter.getStatus() != null;
+        String status = filtered ? filter.getStatus().name() : "";
+
+        // one more project than requested is read to know if there is a next page
+        List<ProjectRow> rows = loggedUser.getMainRole().getName().equals("SUPER_ADMIN")
+                ? projectRepository.findPageByOrganizationId(loggedUser.getOrganization().getOrgId(), cursor, filtered, status, pageSize + 1)
+                : projectRepository.findPageByUserId(loggedUser.getId(), cursor, filtered, status, pageSize + 1);
+        List<SimpleProjectReadModel> projects = rows.stream()
+                .map(this::toReadModel)
                 .collect(Collectors.toList());
+
+        ProjectPage page = new ProjectPage();
+        if(projects.size() > pageSize){
+            projects = projects.subList(0, pageSize);
+            page.setNextCursor(projects.get(pageSize - 1).getId());
+        }
+        page.setProjects(projects);
+        return page;
     }
 
-    public ProjectReadModel getProjectById(long projectId){
-        Project project = projectRepository.findById(projectId).orElseThrow();
+    /**
+     * Reads the project with the parts of the given plan, every part with a single query instead of walking
+     * the entity graph. The board is read with two queries, the full project with four.
+     */
+    public ProjectReadModel getProjectById(long projectId, ProjectFetchPlan plan){
+        ProjectRow row = projectRepository.findRowById(projectId).orElseThrow();
 
-        SecurityUtil.checkIfUserIsPartOfOrganization(project.getOrganization().getOrgId());
+        SecurityUtil.checkIfUserIsPartOfOrganization(row.getOrganizationId());
         SecurityUtil.checkUserPermission(PROJECT_READ);
 
-        return ProjectMapper.INSTANCE.toProjectReadModel(project);
+        SimpleProjectReadModel summary = toReadModel(row);
+        ProjectReadModel project = new ProjectReadModel();
+        project.setId(summary.getId());
+        project.setName(summary.getName());
+        project.setStatus(summary.getStatus());
+        project.setStartTime(summary.getStartTime());
+        project.setEndTime(summary.getEndTime());
+        project.setDescription(summary.getDescription());
+        project.setOwner(summary.getOwner());
+        if(plan == ProjectFetchPlan.MEMBERS || plan == ProjectFetchPlan.FULL){
+            project.setUsers(getMembers(projectId));
+        }
+        if(plan == ProjectFetchPlan.BOARD || plan == ProjectFetchPlan.FULL){
+            project.setTaskGroups(getBoard(projectId, plan == ProjectFetchPlan.FULL));
+        }
+        return project;
     }
 
     @Transactional
@@ -122,33 +170,146 @@ public class ProjectService {
     }
 
 
-    @Transactional
     public ProjectMetaData getOverview(long projectId){
-        Project project = projectRepository.findById(projectId).orElseThrow();
-        List<Task> tasks = new ArrayList<>();
-        project.getTaskGroups().forEach(
-               taskGroup -> tasks.addAll(taskGroup.getTasks())
-        );
+        List<ProjectOverviewRow> overviewRows = projectRepository.getOverview(projectId);
+        ProjectOverviewRow projectRow = overviewRows.stream().findFirst().orElseThrow();
 
-        long countOfAllTasksWithDoneStatus = tasks.stream()
-                .filter(task -> task.getStatus() == TaskStatus.DONE)
-                .count();
+        SecurityUtil.checkIfUserIsPartOfOrganization(projectRow.getOrganizationId());
+        SecurityUtil.checkUserPermission(PROJECT_READ);
 
-        ProjectMetaData projectMetaData = new ProjectMetaData();
-        projectMetaData.setNumberOfAllTasks(tasks.size());
-        projectMetaData.setNumberOfCompletedTasks(countOfAllTasksWithDoneStatus);
+        long numberOfAllTasks = 0;
+        long numberOfCompletedTasks = 0;
         TaskByPriorityMetadata taskByPriorityMetadata = new TaskByPriorityMetadata();
-        taskByPriorityMetadata.setNumberOfTasksWithLowPriority(countByPriority(tasks, LOW));
-        taskByPriorityMetadata.setNumberOfTasksWithNormalPriority(countByPriority(tasks, NORMAL));
-        taskByPriorityMetadata.setNumberOfTasksWithHighPriority(countByPriority(tasks, HIGH));
-        taskByPriorityMetadata.setNumberOfTasksWithUrgentPriority(countByPriority(tasks, URGENT));
+        for(ProjectOverviewRow row : overviewRows){
+            numberOfAllTasks += row.getNumberOfTasks();
+            numberOfCompletedTasks += row.getNumberOfCompletedTasks();
+            if(row.getPriority() == null){
+                continue;
+            }
+            switch (TaskPriority.valueOf(row.getPriority())){
+                case LOW:
+                    taskByPriorityMetadata.setNumberOfTasksWithLowPriority(row.getNumberOfTasks());
+                    break;
+                case NORMAL:
+                    taskByPriorityMetadata.setNumberOfTasksWithNormalPriority(row.getNumberOfTasks());
+                    break;
+                case HIGH:
+                    taskByPriorityMetadata.setNumberOfTasksWithHighPriority(row.getNumberOfTasks());
+                    break;
+                case URGENT:
+                    taskByPriorityMetadata.setNumberOfTasksWithUrgentPriority(row.getNumberOfTasks());
+                    break;
+            }
+        }
+
+        TimesheetMetadata timesheetMetadata = new TimesheetMetadata();
+        timesheetMetadata.setNumberOfAllBillableHours(projectRow.getAllBillableHours());
+        timesheetMetadata.setNumberOfAllNonBillableHours(projectRow.getAllNonBillableHours());
+        timesheetMetadata.setNumberOfBillableHoursInCurrentMonth(projectRow.getBillableHoursInCurrentMonth());
+        timesheetMetadata.setNumberOfNonBillableHoursInCurrentMonth(projectRow.getNonBillableHoursInCurrentMonth());
+
+        ProjectMetaData projectMetaData = new ProjectMetaData();
+        projectMetaData.setNumberOfAllTasks(numberOfAllTasks);
+        projectMetaData.setNumberOfCompletedTasks(numberOfCompletedTasks);
         projectMetaData.setTaskByPriority(taskByPriorityMetadata);
+        projectMetaData.setTimesheetMetadata(timesheetMetadata);
         return projectMetaData;
     }
 
-    private long countByPriority(List<Task> tasks, TaskPriority taskPriority){
-        return tasks.stream()
-                .filter(task -> task.getPriority() == taskPriority)
-                .count();
+    private SimpleProjectReadModel toReadModel(ProjectRow row){
+        SimpleProjectReadModel project = new SimpleProjectReadModel();
+        project.setId(row.getId());
+        project.setName(row.getName());
+        project.setStatus(row.getStatus() == null ? null : ProjectStatus.valueOf(row.getStatus()));
+        project.setStartTime(row.getStartTime());
+        project.setEndTime(row.getEndTime());
+        project.setDescription(row.getDescription());
+        if(row.getOwnerId() != null){
+            UserReadModel owner = toUserReadModel(row.getOwnerId(), row.getOwnerEmail(), row.getOwnerFirstName(),
+                    row.getOwnerLastName(), row.getOwnerNick(), row.getOwnerProfileImageHash());
+            if(row.getOwnerRoleId() != null){
+                owner.setRole(toRoleReadModel(row.getOwnerRoleId(), row.getOwnerRoleName(), row.getOwnerRolePermissions()));
+            }
+            project.setOwner(owner);
+        }
+        return project;
+    }
+
+    private Set<UserReadModel> getMembers(long projectId){
+        Set<UserReadModel> members = new LinkedHashSet<>();
+        for(ProjectMemberRow row : projectUserRepository.findMemberRows(projectId)){
+            UserReadModel member = toUserReadModel(row.getId(), row.getEmail(), row.getFirstName(), row.getLastName(),
+                    row.getNick(), row.getProfileImageHash());
+            if(row.getRoleId() != null){
+                member.setRole(toRoleReadModel(row.getRoleId(), row.getRoleName(), row.getRolePermissions()));
+            }
+            members.add(member);
+        }
+        return members;
+    }
+
+    private static RoleReadModel toRoleReadModel(long id, String name, String permissions){
+        RoleReadModel role = new RoleReadModel();
+        role.setId(id);
+        role.setName(name);
+        role.setPermissions(permissions == null ? new ArrayList<>() : Arrays.stream(permissions.split(","))
+                .map(permission -> new Permission(Permission.PermissionEnum.valueOf(permission)))
+                .collect(Collectors.toList()));
+        return role;
+    }
+
+    private Set<TaskGroupReadModel> getBoard(long projectId, boolean withWatchers){
+        Map<Long, TaskGroupReadModel> taskGroups = new LinkedHashMap<>();
+        Map<Long, TaskReadModel> tasks = new HashMap<>();
+        for(ProjectBoardRow row : taskGroupRepository.findBoardRows(projectId)){
+            TaskGroupReadModel taskGroup = taskGroups.computeIfAbsent(row.getGroupId(), groupId -> {
+                TaskGroupReadModel readModel = new TaskGroupReadModel();
+                readModel.setId(groupId);
+                readModel.setName(row.getGroupName());
+                readModel.setTasks(new LinkedHashSet<>());
+                return readModel;
+            });
+            if(row.getTaskId() == null){
+                continue;
+            }
+            TaskReadModel task = new TaskReadModel();
+            task.setId(row.getTaskId());
+            task.setName(row.getTaskName());
+            task.setStatus(row.getTaskStatus() == null ? null : TaskStatus.valueOf(row.getTaskStatus()));
+            task.setPriority(row.getTaskPriority() == null ? null : TaskPriority.valueOf(row.getTaskPriority()));
+            task.setDescription(row.getTaskDescription());
+            task.setDueDate(row.getTaskDueDate());
+            task.setEstimatedWorkTime(row.getTaskEstimatedWorkTime() == null ? 0 : row.getTaskEstimatedWorkTime());
+            task.setVersion(row.getTaskVersion());
+            if(row.getOwnerId() != null){
+                task.setOwner(toUserReadModel(row.getOwnerId(), row.getOwnerEmail(), row.getOwnerFirstName(),
+                        row.getOwnerLastName(), row.getOwnerNick(), row.getOwnerProfileImageHash()));
+            }
+            taskGroup.getTasks().add(task);
+            tasks.put(task.getId(), task);
+        }
+
+        if(withWatchers && !tasks.isEmpty()){
+            for(TaskWatcherRow row : taskRepository.findWatcherRowsByProjectId(projectId)){
+                TaskReadModel task = tasks.get(row.getTaskId());
+                if(task != null){
+                    task.getWatchers().add(toUserReadModel(row.getId(), row.getEmail(), row.getFirstName(),
+                            row.getLastName(), row.getNick(), row.getProfileImageHash()));
+                }
+            }
+        }
+        return new LinkedHashSet<>(taskGroups.values());
+    }
+
+    private static UserReadModel toUserReadModel(long id, String email, String firstName, String lastName,
+                                                 String nick, String profileImageHash){
+        UserReadModel user = new UserReadModel();
+        user.setId(id);
+        user.setEmail(email);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setNick(nick);
+        user.setProfileImageHash(profileImageHash);
+        return user;
     }
 }
@@ -0,0 +1,130 @@
+package pl.wolniarskim.project_management.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pl.wolniarskim.project_management.models.DTO.ProjectTaskCountRow;
+import pl.wolniarskim.project_management.models.ProjectTaskStatistics;
+import pl.wolniarskim.project_management.models.ProjectTaskStatisticsId;
+import pl.wolniarskim.project_management.models.TaskPriority;
+import pl.wolniarskim.project_management.models.TaskStatus;
+import pl.wolniarskim.project_management.repositories.ProjectTaskStatisticsRepository;
+
+import javax.transaction.Transactional;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps {@link ProjectTaskStatistics} in sync with task writes, so project overview does not have to count tasks.
+ * Counters are changed in the same transaction as the tasks, the nightly reconciliation rebuilds them from scratch
+ * and reports every counter which drifted.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProjectStatisticsService {
+
+    private final ProjectTaskStatisticsRepository statisticsRepository;
+
+    public void taskCreated(long projectId, TaskStatus status, TaskPriority priority){
+        statisticsRepository.addToTaskCount(projectId, toKey(status), toKey(priority), 1);
+    }
+
+    public void taskDeleted(long projectId, TaskStatus status, TaskPriority priority){
+        statisticsRepository.addToTaskCount(projectId, toKey(status), toKey(priority), -1);
+    }
+
+    public void taskChanged(long projectId, TaskStatus oldStatus, TaskPriority oldPriority,
+                            TaskStatus newStatus, TaskPriority newPriority){
+        if(oldStatus == newStatus && oldPriority == newPriority){
+            return;
+        }
+        taskDeleted(projectId, oldStatus, oldPriority);
+        taskCreated(projectId, newStatus, newPriority);
+    }
+
+    /**
+     * Applies the summed up changes of a bulk operation, one statement per counter instead of one per task.
+     */
+    public void apply(TaskCountChanges changes){
+        changes.deltas.forEach((id, delta) -> {
+            if(delta != 0){
+                statisticsRepository.addToTaskCount(id.getProjectId(), id.getStatus(), id.getPriority(), delta);
+            }
+        });
+    }
+
+    /**
+     * Has to be called before tasks of the group are deleted.
+     */
+    public void taskGroupDeleted(long taskGroupId){
+        statisticsRepository.subtractTasksOfTaskGroup(taskGroupId);
+    }
+
+    /**
+     * Rebuilds all counters from tasks table and returns number of counters which were out of sync.
+     */
+    @Scheduled(cron = "${statistics.reconciliation.cron:0 0 3 * * *}")
+    @Transactional
+    public int reconcile(){
+        statisticsRepository.lockForRebuild();
+
+        Map<ProjectTaskStatisticsId, Long> storedCounts = new HashMap<>();
+        for(ProjectTaskStatistics statistics : statisticsRepository.findAll()){
+            storedCounts.put(statistics.getId(), statistics.getTaskCount());
+        }
+
+        int drifted = 0;
+        for(ProjectTaskCountRow row : statisticsRepository.countAllTasks()){
+            ProjectTaskStatisticsId id = new ProjectTaskStatisticsId(row.getProjectId(), row.getStatus(), row.getPriority());
+            long storedCount = Objects.requireNonNullElse(storedCounts.remove(id), 0L);
+            if(storedCount != row.getTaskCount()){
+                log.warn("Task statistics drift for {}: stored {}, actual {}", id, storedCount, row.getTaskCount());
+                drifted++;
+            }
+        }
+        for(Map.Entry<ProjectTaskStatisticsId, Long> leftover : storedCounts.entrySet()){
+            if(leftover.getValue() != 0){
+                log.warn("Task statistics drift for {}: stored {}, actual 0", leftover.getKey(), leftover.getValue());
+                drifted++;
+            }
+        }
+
+        statisticsRepository.deleteAllStatistics();
+        statisticsRepository.rebuildAllStatistics();
+        log.info("Task statistics rebuilt, {} counters were out of sync", drifted);
+        return drifted;
+    }
+
+    private static String toKey(Enum<?> value){
+        return value == null ? ProjectTaskStatistics.NONE : value.name();
+    }
+
+    /**
+     * Counter changes collected while many tasks are written, applied at once by {@link #apply(TaskCountChanges)}.
+     */
+    public static class TaskCountChanges {
+
+        private final Map<ProjectTaskStatisticsId, Long> deltas = new HashMap<>();
+
+        public void taskCreated(long projectId, TaskStatus status, TaskPriority priority){
+            add(projectId, status, priority, 1);
+        }
+
+        public void taskDeleted(long projectId, TaskStatus status, TaskPriority priority){
+            add(projectId, status, priority, -1);
+        }
+
+        public void taskChanged(long oldProjectId, TaskStatus oldStatus, TaskPriority oldPriority,
+                                long newProjectId, TaskStatus newStatus, TaskPriority newPriority){
+            taskDeleted(oldProjectId, oldStatus, oldPriority);
+            taskCreated(newProjectId, newStatus, newPriority);
+        }
+
+        private void add(long projectId, TaskStatus status, TaskPriority priority, long delta){
+            deltas.merge(new ProjectTaskStatisticsId(projectId, toKey(status), toKey(priority)), delta, Long::sum);
+        }
+    }
+}
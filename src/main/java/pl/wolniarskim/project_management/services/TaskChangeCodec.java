@@ -0,0 +1,84 @@
+package pl.wolniarskim.project_management.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pl.wolniarskim.project_management.models.DTO.TaskFieldChange;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+
+/**
+ * Converts field changes of a task history entry to the form stored in {@code task_histories.changes} and back.
+ * Every change is written as a {@code [field, oldValue, newValue]} array and payloads longer than
+ * {@value #COMPRESSION_THRESHOLD} bytes are deflated with the pooled deflaters of {@link CompressionCodec}. The first
+ * byte tells which of the two forms follows.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskChangeCodec {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final byte PLAIN = 0;
+    private static final byte DEFLATED = 1;
+    private static final int COMPRESSION_THRESHOLD = 256;
+
+    private final CompressionCodec compressionCodec;
+
+    public byte[] encode(List<TaskFieldChange> changes){
+        ArrayNode encoded = OBJECT_MAPPER.createArrayNode();
+        for(TaskFieldChange change : changes){
+            encoded.addArray()
+                    .add(change.getField())
+                    .add(change.getOldValue())
+                    .add(change.getNewValue());
+        }
+        try {
+            byte[] json = OBJECT_MAPPER.writeValueAsBytes(encoded);
+            if(json.length > COMPRESSION_THRESHOLD){
+                return withHeader(DEFLATED, compressionCodec.deflate(json));
+            }
+            return withHeader(PLAIN, json);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode task changes", e);
+        }
+    }
+
+    public List<TaskFieldChange> decode(byte[] changes){
+        if(changes == null || changes.length == 0){
+            return Collections.emptyList();
+        }
+        try {
+            byte[] json = changes[0] == DEFLATED
+                    ? compressionCodec.inflate(changes, 1, changes.length - 1)
+                    : Arrays.copyOfRange(changes, 1, changes.length);
+            List<TaskFieldChange> decoded = new ArrayList<>();
+            for(JsonNode change : OBJECT_MAPPER.readTree(json)){
+                decoded.add(change.isArray()
+                        ? new TaskFieldChange(text(change.get(0)), text(change.get(1)), text(change.get(2)))
+                        // entries written before the compact form stored objects
+                        : new TaskFieldChange(text(change.get("field")), text(change.get("oldValue")), text(change.get("newValue"))));
+            }
+            return decoded;
+        } catch (IOException | DataFormatException e) {
+            throw new IllegalStateException("Could not decode task changes", e);
+        }
+    }
+
+    private static String text(JsonNode node){
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static byte[] withHeader(byte header, byte[] payload){
+        byte[] result = new byte[payload.length + 1];
+        result[0] = header;
+        System.arraycopy(payload, 0, result, 1, payload.length);
+        return result;
+    }
+}
@@ -25,6 +25,7 @@ public class TaskGroupService {
 
     private final TaskGroupRepository taskGroupRepository;
     private final ProjectRepository projectRepository;
+    private final ProjectStatisticsService projectStatisticsService;
 
     @Transactional
     public TaskGroupReadModel createTaskGroup(long projectId, TaskGroupWriteModel taskGroupWriteModel){
@@ -48,6 +49,7 @@ public class TaskGroupService {
         SecurityUtil.checkIfUserIsPartOfOrganization(taskGroup.getProject().getOrganization().getOrgId());
         SecurityUtil.checkUserPermission(TASK_GROUP_DELETE);
 
+        projectStatisticsService.taskGroupDeleted(taskGroupId);
         taskGroupRepository.deleteAllTaskByTaskGroup(taskGroupId);
         taskGroupRepository.deleteTaskGroupById(taskGroupId);
     }
@@ -1,8 +1,17 @@
 package pl.wolniarskim.project_management.services;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import pl.wolniarskim.project_management.mappers.TaskHistoryMapper;
+import pl.wolniarskim.project_management.models.DTO.TaskFieldChange;
+import pl.wolniarskim.project_management.models.DTO.TaskHistoryFilter;
+import pl.wolniarskim.project_management.models.DTO.TaskHistoryGroupRow;
+import pl.wolniarskim.project_management.models.DTO.TaskHistoryPage;
 import pl.wolniarskim.project_management.models.DTO.TaskHistoryReadModel;
 import pl.wolniarskim.project_management.models.Task;
 import pl.wolniarskim.project_management.models.TaskHistory;
@@ -10,37 +19,189 @@ import pl.wolniarskim.project_management.repositories.TaskHistoryRepository;
 import pl.wolniarskim.project_management.repositories.TaskRepository;
 import pl.wolniarskim.project_management.utils.SecurityUtil;
 
+import javax.transaction.Transactional;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.TASK_HISTORY_READ;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class TaskHistoryService {
 
+    private static final String CREATED = "Task created";
+    private static final String UPDATED = "Task updated";
+    private static final LocalDateTime EARLIEST_ENTRY = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String INSERT_HISTORY = "insert into task_histories(task_id, created_at, description, changes) values (?, ?, ?, ?)";
+
     private final TaskRepository taskRepository;
     private final TaskHistoryRepository taskHistoryRepository;
     private final TaskHistoryMapper taskHistoryMapper;
-    public List<TaskHistoryReadModel> getHistories(long taskId){
+    private final TaskChangeCodec taskChangeCodec;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${history.page-size:50}")
+    private int defaultPageSize;
+    @Value("${history.max-page-size:500}")
+    private int maxPageSize;
+    @Value("${history.compaction.age-days:30}")
+    private int compactionAgeDays;
+    @Value("${history.compaction.batch-size:1000}")
+    private int compactionBatchSize;
+
+    public TaskHistoryPage getHistories(long taskId, TaskHistoryFilter filter){
         Task task = taskRepository.findById(taskId).orElseThrow();
         SecurityUtil.checkIfUserIsPartOfOrganization(task.getTaskGroup().getProject().getOrganization().getOrgId());
         SecurityUtil.checkUserPermission(TASK_HISTORY_READ);
 
-        return taskHistoryRepository.findAllByTask_Id(taskId).stream()
+        int pageSize = filter.getSize() == null || filter.getSize() <= 0 ? defaultPageSize : Math.min(filter.getSize(), maxPageSize);
+        long cursor = filter.getCursor() == null ? Long.MAX_VALUE : filter.getCursor();
+        LocalDateTime since = filter.getSince() == null ? EARLIEST_ENTRY : filter.getSince();
+
+        // one more entry than requested is read to know if there is a next page
+        List<TaskHistoryReadModel> histories = taskHistoryRepository.findPage(taskId, cursor, since, PageRequest.of(0, pageSize + 1)).stream()
                 .map(taskHistoryMapper::fromTask)
                 .collect(Collectors.toList());
+
+        TaskHistoryPage page = new TaskHistoryPage();
+        if(histories.size() > pageSize){
+            histories = histories.subList(0, pageSize);
+            page.setNextCursor(histories.get(pageSize - 1).getId());
+        }
+        page.setHistories(histories);
+        return page;
     }
 
-    public void addHistoryEntry(String description, long taskId){
-        Task task = taskRepository.findById(taskId).orElseThrow();
+    /**
+     * Values of the tracked task fields, has to be taken before the task is changed to diff it afterwards.
+     */
+    public Map<String, String> snapshot(Task task){
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("name", task.getName());
+        values.put("status", Objects.toString(task.getStatus(), null));
+        values.put("priority", Objects.toString(task.getPriority(), null));
+        values.put("description", task.getDescription());
+        values.put("dueDate", Objects.toString(task.getDueDate(), null));
+        values.put("estimatedWorkTime", String.valueOf(task.getEstimatedWorkTime()));
+        values.put("owner", task.getTaskOwner() == null ? null : String.valueOf(task.getTaskOwner().getId()));
+        return values;
+    }
+
+    public TaskHistory created(Task task){
+        List<TaskFieldChange> changes = new ArrayList<>();
+        snapshot(task).forEach((field, value) -> {
+            if(value != null){
+                changes.add(new TaskFieldChange(field, null, value));
+            }
+        });
+        return newEntry(task, CREATED, changes);
+    }
+
+    public TaskHistory updated(Map<String, String> before, Task task){
+        List<TaskFieldChange> changes = new ArrayList<>();
+        snapshot(task).forEach((field, value) -> {
+            String oldValue = before.get(field);
+            if(!Objects.equals(oldValue, value)){
+                changes.add(new TaskFieldChange(field, oldValue, value));
+            }
+        });
+        return newEntry(task, describeUpdate(changes), changes);
+    }
+
+    public void recordCreation(Task task){
+        saveAll(List.of(created(task)));
+    }
+
+    public void recordUpdate(Map<String, String> before, Task task){
+        saveAll(List.of(updated(before, task)));
+    }
 
+    /**
+     * Inserts all entries in one JDBC batch, entries only need the id of their task.
+     */
+    public void saveAll(Collection<TaskHistory> entries){
+        if(entries.isEmpty()){
+            return;
+        }
+        // tasks the entries point to may still be waiting in the persistence context
+        taskRepository.flush();
+        jdbcTemplate.batchUpdate(INSERT_HISTORY, entries, entries.size(), (statement, entry) -> {
+            statement.setLong(1, entry.getTask().getId());
+            statement.setTimestamp(2, Timestamp.valueOf(entry.getCreatedAt()));
+            statement.setString(3, entry.getDescription());
+            statement.setBytes(4, entry.getChanges());
+        });
+    }
+
+    /**
+     * Merges structured entries of the same task created on the same day, older than {@code history.compaction.age-days},
+     * into one entry holding the first old and the last new value of every field. The last entry of the day is
+     * rewritten in place and keeps its id and time, so pages of history keep their order. Returns number of merged groups.
+     */
+    @Scheduled(cron = "${history.compaction.cron:0 30 3 * * *}")
+    @Transactional
+    public int compactHistory(){
+        LocalDateTime createdBefore = LocalDate.now().minusDays(compactionAgeDays).atStartOfDay();
+        List<TaskHistoryGroupRow> groups = taskHistoryRepository.findCompactableGroups(createdBefore, compactionBatchSize);
+
+        int compactedGroups = 0;
+        List<Long> removedIds = new ArrayList<>();
+        for(TaskHistoryGroupRow group : groups){
+            List<TaskHistory> entries = taskHistoryRepository.findGroup(group.getTaskId(),
+                    group.getDay().atStartOfDay(), group.getDay().plusDays(1).atStartOfDay());
+            if(entries.size() < 2){
+                continue;
+            }
+            mergeIntoLast(entries);
+            entries.subList(0, entries.size() - 1).forEach(entry -> removedIds.add(entry.getId()));
+            compactedGroups++;
+        }
+
+        // flushes the rewritten entries before the merged ones are removed
+        taskHistoryRepository.deleteAllByIdInBatch(removedIds);
+        log.info("Compacted {} task history entries into {}", removedIds.size() + compactedGroups, compactedGroups);
+        return compactedGroups;
+    }
+
+    private void mergeIntoLast(List<TaskHistory> entries){
+        Map<String, TaskFieldChange> merged = new LinkedHashMap<>();
+        for(TaskHistory entry : entries){
+            for(TaskFieldChange change : taskChangeCodec.decode(entry.getChanges())){
+                merged.merge(change.getField(), change,
+                        (first, next) -> new TaskFieldChange(first.getField(), first.getOldValue(), next.getNewValue()));
+            }
+        }
+        List<TaskFieldChange> changes = merged.values().stream()
+                .filter(change -> !Objects.equals(change.getOldValue(), change.getNewValue()))
+                .collect(Collectors.toList());
+
+        TaskHistory first = entries.get(0);
+        TaskHistory last = entries.get(entries.size() - 1);
+        last.setDescription(CREATED.equals(first.getDescription()) ? CREATED : describeUpdate(changes));
+        last.setChanges(taskChangeCodec.encode(changes));
+    }
+
+    private static String describeUpdate(List<TaskFieldChange> changes){
+        return changes.isEmpty()
+                ? UPDATED
+                : changes.stream().map(TaskFieldChange::getField).collect(Collectors.joining(", ", UPDATED + ": ", ""));
+    }
+
+    private TaskHistory newEntry(Task task, String description, List<TaskFieldChange> changes){
         TaskHistory taskHistory = new TaskHistory();
         taskHistory.setTask(task);
-        taskHistory.setDescription(description);
         taskHistory.setCreatedAt(LocalDateTime.now());
-
-        taskHistoryRepository.save(taskHistory);
+        taskHistory.setDescription(description);
+        taskHistory.setChanges(taskChangeCodec.encode(changes));
+        return taskHistory;
     }
 }
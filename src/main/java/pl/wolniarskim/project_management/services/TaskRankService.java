@@ -0,0 +1,75 @@
+package pl.wolniarskim.project_management.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.wolniarskim.project_management.utils.RankUtil;
+
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gives tasks of a group short, evenly spaced rank keys again. Keys get longer when tasks are put between close
+ * neighbours over and over, and tasks appended to a group at the same time can get the same key, such tasks are
+ * ordered by id. Both are fixed in the background, a move which would need a key longer than
+ * {@code tasks.rank.max-length} or lands between equal keys rebalances its group right away.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaskRankService {
+
+    private static final String SELECT_GROUPS_TO_REBALANCE = "select task_group_id from tasks where task_group_id is not null " +
+            "group by task_group_id having max(length(rank)) > ? or count(*) > count(distinct rank) limit ?";
+    // tasks are always locked in the order of their ids, like TaskRepository.lockRanks does, and their order is read
+    // once they are locked
+    private static final String LOCK_GROUP = "select id from tasks where task_group_id = ? order by id for update";
+    private static final String SELECT_GROUP_ORDER = "select id from tasks where task_group_id = ? order by rank, id";
+    private static final String UPDATE_RANK = "update tasks set rank = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${tasks.rank.max-length:24}")
+    private int maxRankLength;
+    @Value("${tasks.rank.rebalance-batch-size:100}")
+    private int rebalanceBatchSize;
+
+    public boolean isTooLong(String rank){
+        return rank.length() > maxRankLength;
+    }
+
+    /**
+     * Rebalances up to {@code tasks.rank.rebalance-batch-size} groups having too long or equal ranks and returns how
+     * many were rebalanced. Every group is rebalanced in its own transaction, so only one group is locked at a time.
+     */
+    @Scheduled(fixedDelayString = "${tasks.rank.rebalance-interval:600000}")
+    public int rebalanceGroups(){
+        List<Long> taskGroupIds = jdbcTemplate.queryForList(SELECT_GROUPS_TO_REBALANCE, Long.class, maxRankLength, rebalanceBatchSize);
+        taskGroupIds.forEach(taskGroupId -> transactionTemplate.executeWithoutResult(status -> rebalance(taskGroupId)));
+        if(!taskGroupIds.isEmpty()){
+            log.info("Rebalanced task ranks of {} task groups", taskGroupIds.size());
+        }
+        return taskGroupIds.size();
+    }
+
+    /**
+     * New ranks for all tasks of the group in their current order. Runs in the caller's transaction, the tasks of the
+     * group stay locked until it ends.
+     */
+    public void rebalance(long taskGroupId){
+        jdbcTemplate.queryForList(LOCK_GROUP, Long.class, taskGroupId);
+        List<Long> taskIds = jdbcTemplate.queryForList(SELECT_GROUP_ORDER, Long.class, taskGroupId);
+        List<String> ranks = RankUtil.spread(taskIds.size());
+        List<Object[]> updates = new ArrayList<>(taskIds.size());
+        for(int i = 0; i < taskIds.size(); i++){
+            updates.add(new Object[]{ranks.get(i), taskIds.get(i)});
+        }
+        jdbcTemplate.batchUpdate(UPDATE_RANK, updates);
+    }
+}
@@ -0,0 +1,151 @@
+package pl.wolniarskim.project_management.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import pl.wolniarskim.project_management.exceptions.NoSuchEntityException;
+import pl.wolniarskim.project_management.exceptions.PermissionDeniedException;
+import pl.wolniarskim.project_management.models.DTO.TaskSearchFilter;
+import pl.wolniarskim.project_management.models.DTO.TaskSearchPage;
+import pl.wolniarskim.project_management.models.DTO.TaskSearchReadModel;
+import pl.wolniarskim.project_management.models.DTO.UserReadModel;
+import pl.wolniarskim.project_management.models.TaskPriority;
+import pl.wolniarskim.project_management.models.TaskStatus;
+import pl.wolniarskim.project_management.models.User;
+import pl.wolniarskim.project_management.repositories.ProjectRepository;
+import pl.wolniarskim.project_management.utils.SecurityUtil;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.PROJECT_READ;
+
+/**
+ * Searches tasks of the organization of the logged user. The SQL is put together from the given filters only, so
+ * every search gets a plan for its own conditions and a text query is answered from the GIN indexes of the
+ * {@code search_vector} columns, which the database keeps up to date by triggers.
+ */
+@Service
+@RequiredArgsConstructor
+public class TaskSearchService {
+
+    private static final String SELECT_TASKS = "select t.id, t.name, t.status, t.priority, t.description, t.due_date, " +
+            "g.id as task_group_id, g.name as task_group_name, p.id as project_id, p.name as project_name, " +
+            "u.id as owner_id, u.email as owner_email, u.first_name as owner_first_name, u.last_name as owner_last_name, " +
+            "u.nick as owner_nick, u.profile_image_hash as owner_profile_image_hash " +
+            "from tasks t join task_groups g on g.id = t.task_group_id join projects p on p.id = g.project_id " +
+            "left join users u on u.id = t.task_owner_id " +
+            "where p.organization_org_id = ? and t.id < ?";
+    private static final String MATCHES_TASK = "t.search_vector @@ websearch_to_tsquery('simple', ?)";
+    private static final String MATCHES_COMMENT = "exists (select 1 from comments c where c.task_id = t.id " +
+            "and c.search_vector @@ websearch_to_tsquery('simple', ?))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProjectRepository projectRepository;
+
+    @Value("${tasks.search.page-size:50}")
+    private int defaultPageSize;
+    @Value("${tasks.search.max-page-size:500}")
+    private int maxPageSize;
+
+    public TaskSearchPage search(TaskSearchFilter filter){
+        User loggedUser = SecurityUtil.getLoggedUser();
+        if(Objects.isNull(loggedUser.getOrganization())){
+            throw new PermissionDeniedException();
+        }
+        SecurityUtil.checkUserPermission(PROJECT_READ);
+        if(Objects.nonNull(filter.getProjectId())){
+            long organizationId = projectRepository.findOrganizationIdByProjectId(filter.getProjectId())
+                    .orElseThrow(NoSuchEntityException::new);
+            SecurityUtil.checkIfUserIsPartOfOrganization(organizationId);
+        }
+
+        int pageSize = filter.getSize() == null || filter.getSize() <= 0 ? defaultPageSize : Math.min(filter.getSize(), maxPageSize);
+        StringBuilder sql = new StringBuilder(SELECT_TASKS);
+        List<Object> args = new ArrayList<>();
+        args.add(loggedUser.getOrganization().getOrgId());
+        args.add(filter.getCursor() == null ? Long.MAX_VALUE : filter.getCursor());
+
+        if(Objects.nonNull(filter.getQuery()) && !filter.getQuery().isBlank()){
+            if(filter.isComments()){
+                sql.append(" and (").append(MATCHES_TASK).append(" or ").append(MATCHES_COMMENT).append(")");
+                args.add(filter.getQuery());
+            } else {
+                sql.append(" and ").append(MATCHES_TASK);
+            }
+            args.add(filter.getQuery());
+        }
+        if(Objects.nonNull(filter.getStatus())){
+            sql.append(" and t.status = ?");
+            args.add(filter.getStatus().name());
+        }
+        if(Objects.nonNull(filter.getPriority())){
+            sql.append(" and t.priority = ?");
+            args.add(filter.getPriority().name());
+        }
+        if(Objects.nonNull(filter.getOwnerId())){
+            sql.append(" and t.task_owner_id = ?");
+            args.add(filter.getOwnerId());
+        }
+        if(Objects.nonNull(filter.getDueFrom())){
+            sql.append(" and t.due_date >= ?");
+            args.add(Date.valueOf(filter.getDueFrom()));
+        }
+        if(Objects.nonNull(filter.getDueTo())){
+            sql.append(" and t.due_date <= ?");
+            args.add(Date.valueOf(filter.getDueTo()));
+        }
+        if(Objects.nonNull(filter.getProjectId())){
+            sql.append(" and p.id = ?");
+            args.add(filter.getProjectId());
+        }
+        // one more task than requested is read to know if there is a next page
+        sql.append(" order by t.id desc limit ?");
+        args.add(pageSize + 1);
+
+        List<TaskSearchReadModel> tasks = jdbcTemplate.query(sql.toString(), (resultSet, rowNum) -> toReadModel(resultSet), args.toArray());
+
+        TaskSearchPage page = new TaskSearchPage();
+        if(tasks.size() > pageSize){
+            tasks = tasks.subList(0, pageSize);
+            page.setNextCursor(tasks.get(pageSize - 1).getId());
+        }
+        page.setTasks(tasks);
+        return page;
+    }
+
+    private TaskSearchReadModel toReadModel(ResultSet resultSet) throws SQLException {
+        TaskSearchReadModel task = new TaskSearchReadModel();
+        task.setId(resultSet.getLong("id"));
+        task.setName(resultSet.getString("name"));
+        String status = resultSet.getString("status");
+        task.setStatus(status == null ? null : TaskStatus.valueOf(status));
+        String priority = resultSet.getString("priority");
+        task.setPriority(priority == null ? null : TaskPriority.valueOf(priority));
+        task.setDescription(resultSet.getString("description"));
+        Date dueDate = resultSet.getDate("due_date");
+        task.setDueDate(dueDate == null ? null : dueDate.toLocalDate());
+        task.setTaskGroupId(resultSet.getLong("task_group_id"));
+        task.setTaskGroupName(resultSet.getString("task_group_name"));
+        task.setProjectId(resultSet.getLong("project_id"));
+        task.setProjectName(resultSet.getString("project_name"));
+
+        long ownerId = resultSet.getLong("owner_id");
+        if(!resultSet.wasNull()){
+            UserReadModel owner = new UserReadModel();
+            owner.setId(ownerId);
+            owner.setEmail(resultSet.getString("owner_email"));
+            owner.setFirstName(resultSet.getString("owner_first_name"));
+            owner.setLastName(resultSet.getString("owner_last_name"));
+            owner.setNick(resultSet.getString("owner_nick"));
+            owner.setProfileImageHash(resultSet.getString("owner_profile_image_hash"));
+            task.setOwner(owner);
+        }
+        return task;
+    }
+}
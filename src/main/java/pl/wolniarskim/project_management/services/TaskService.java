@@ -1,23 +1,39 @@
 package pl.wolniarskim.project_management.services;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import pl.wolniarskim.project_management.exceptions.BulkSizeExceededException;
+import pl.wolniarskim.project_management.exceptions.NoSuchEntityException;
+import pl.wolniarskim.project_management.exceptions.TaskOrderConflictException;
+import pl.wolniarskim.project_management.exceptions.TaskVersionConflictException;
 import pl.wolniarskim.project_management.mappers.TaskGroupMapper;
 import pl.wolniarskim.project_management.mappers.TaskMapper;
 import pl.wolniarskim.project_management.models.*;
-import pl.wolniarskim.project_management.models.DTO.TaskGroupReadModel;
-import pl.wolniarskim.project_management.models.DTO.TaskGroupWriteModel;
-import pl.wolniarskim.project_management.models.DTO.TaskReadModel;
-import pl.wolniarskim.project_management.models.DTO.TaskWriteModel;
+import pl.wolniarskim.project_management.models.DTO.*;
 import pl.wolniarskim.project_management.repositories.ProjectRepository;
 import pl.wolniarskim.project_management.repositories.TaskGroupRepository;
 import pl.wolniarskim.project_management.repositories.TaskRepository;
 import pl.wolniarskim.project_management.repositories.UserRepository;
+import pl.wolniarskim.project_management.services.ProjectStatisticsService.TaskCountChanges;
+import pl.wolniarskim.project_management.utils.RankUtil;
 import pl.wolniarskim.project_management.utils.SecurityUtil;
 
 import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -29,6 +45,11 @@ public class TaskService {
     private final UserRepository userRepository;
     private final TaskHistoryService taskHistoryService;
     private final NotificationService notificationService;
+    private final ProjectStatisticsService projectStatisticsService;
+    private final TaskRankService taskRankService;
+
+    @Value("${tasks.bulk.max-size:1000}")
+    private int maxBulkSize;
 
     @Transactional
     public TaskReadModel createTask(long taskGroupId, TaskWriteModel taskWriteModel, User user){
@@ -41,6 +62,7 @@ public class TaskService {
 
         Task toSave = TaskMapper.INSTANCE.toTask(taskWriteModel);
         toSave.setTaskGroup(taskGroup);
+        toSave.setRank(RankUtil.after(taskRepository.findLastRank(taskGroupId).orElse(null)));
         if(Objects.nonNull(taskWriteModel.getOwner())){
             User user1 = new User();
             user1.setId(taskWriteModel.getOwner().getId());
@@ -53,7 +75,8 @@ public class TaskService {
             savedTask.setTaskOwner(byId.get());
         }
 
-        taskHistoryService.addHistoryEntry("Task created with values: \n" + savedTask, savedTask.getId());
+        taskHistoryService.recordCreation(savedTask);
+        projectStatisticsService.taskCreated(project.getId(), savedTask.getStatus(), savedTask.getPriority());
 
         return TaskMapper.INSTANCE.toReadModel(savedTask);
     }
@@ -66,31 +89,342 @@ public class TaskService {
         SecurityUtil.checkUserPermission(Permission.PermissionEnum.TASK_DELETE);
 
         taskRepository.deleteById(taskId);
+        projectStatisticsService.taskDeleted(task.getTaskGroup().getProject().getId(), task.getStatus(), task.getPriority());
     }
 
+    /**
+     * Replaces all fields of the task, its watchers are kept. {@code expectedVersion} is the version of the task the
+     * client has seen, null when the client does not care about changes made in the meantime.
+     */
     @Transactional
-    public TaskReadModel updateTask(long taskId, TaskWriteModel taskWriteModel){
-        Task task = taskRepository.findById(taskId).orElseThrow();
+    public TaskReadModel updateTask(long taskId, TaskWriteModel taskWriteModel, Long expectedVersion){
+        return changeTask(taskId, expectedVersion, task -> {
+            task.setName(taskWriteModel.getName());
+            task.setStatus(taskWriteModel.getStatus());
+            task.setPriority(taskWriteModel.getPriority());
+            task.setDescription(taskWriteModel.getDescription());
+            task.setDueDate(taskWriteModel.getDueDate());
+            task.setEstimatedWorkTime(taskWriteModel.getEstimatedWorkTime());
+            task.setTaskOwner(Objects.isNull(taskWriteModel.getOwner()) ? null : findOwner(taskWriteModel.getOwner()));
+        });
+    }
 
-        SecurityUtil.checkIfUserIsPartOfOrganization(task.getTaskGroup().getProject().getOrganization().getOrgId());
+    /**
+     * Changes only the fields present in the patch, the UPDATE contains only the columns which really changed. The
+     * description, due date and owner are cleared when the patch sets them to null.
+     */
+    @Transactional
+    public TaskReadModel patchTask(long taskId, TaskPatchWriteModel patch, Long expectedVersion){
+        return changeTask(taskId, expectedVersion, task -> {
+            if(Objects.nonNull(patch.getName())){
+                task.setName(patch.getName());
+            }
+            if(Objects.nonNull(patch.getStatus())){
+                task.setStatus(patch.getStatus());
+            }
+            if(Objects.nonNull(patch.getPriority())){
+                task.setPriority(patch.getPriority());
+            }
+            if(Objects.nonNull(patch.getDescription())){
+                task.setDescription(patch.getDescription().orElse(null));
+            }
+            if(Objects.nonNull(patch.getDueDate())){
+                task.setDueDate(patch.getDueDate().orElse(null));
+            }
+            if(Objects.nonNull(patch.getEstimatedWorkTime())){
+                task.setEstimatedWorkTime(patch.getEstimatedWorkTime());
+            }
+            if(Objects.nonNull(patch.getOwner())){
+                task.setTaskOwner(patch.getOwner().map(this::findOwner).orElse(null));
+            }
+        });
+    }
+
+    /**
+     * Changes the managed task in place, so there is no merge and dirty checking writes only what changed. A task
+     * whose version is not {@code expectedVersion}, or which was updated concurrently, is not changed.
+     */
+    private TaskReadModel changeTask(long taskId, Long expectedVersion, Consumer<Task> changes){
+        TaskWithScopeRow scope = taskRepository.findWithScopeById(taskId).orElseThrow(NoSuchEntityException::new);
+        SecurityUtil.checkIfUserIsPartOfOrganization(scope.getOrganizationId());
         SecurityUtil.checkUserPermission(Permission.PermissionEnum.TASK_UPDATE);
-        Task toSave = TaskMapper.INSTANCE.toTask(taskWriteModel);
-        toSave.setTaskGroup(task.getTaskGroup());
-        toSave.setId(task.getId());
 
-        if(Objects.nonNull(taskWriteModel.getOwner())){
-            User user1 = new User();
-            user1.setId(taskWriteModel.getOwner().getId());
-            toSave.setTaskOwner(user1);
-            if(task.getStatus() != taskWriteModel.getStatus()){
-                String message = String.format("Status of your task was changed from %s to %s", task.getStatus(), taskWriteModel.getStatus());
-                notificationService.createNotification(user1, message, NotificationStatus.UNREAD);
+        Task task = scope.getTask();
+        if(Objects.nonNull(expectedVersion) && expectedVersion != task.getVersion()){
+            throw new TaskVersionConflictException();
+        }
+        Map<String, String> taskValues = taskHistoryService.snapshot(task);
+        TaskStatus oldStatus = task.getStatus();
+        TaskPriority oldPriority = task.getPriority();
+
+        changes.accept(task);
+        try {
+            taskRepository.flush();
+        } catch (ObjectOptimisticLockingFailureException e){
+            throw new TaskVersionConflictException();
+        }
+
+        if(Objects.nonNull(task.getTaskOwner()) && oldStatus != task.getStatus()){
+            String message = String.format("Status of your task was changed from %s to %s", oldStatus, task.getStatus());
+            notificationService.createNotification(task.getTaskOwner(), message, NotificationStatus.UNREAD);
+        }
+        projectStatisticsService.taskChanged(scope.getProjectId(), oldStatus, oldPriority, task.getStatus(), task.getPriority());
+        taskHistoryService.recordUpdate(taskValues, task);
+        return TaskMapper.INSTANCE.toReadModel(task);
+    }
+
+    /**
+     * Creates all tasks in one transaction. Organizations are checked once per distinct project, tasks, their history
+     * and statistics are written in batches.
+     */
+    @Transactional
+    public List<TaskReadModel> createTasks(List<TaskBulkCreateWriteModel> taskWriteModels){
+        checkBulkSize(taskWriteModels.size());
+        SecurityUtil.checkUserPermission(Permission.PermissionEnum.TASK_CREATE);
+        if(taskWriteModels.isEmpty()){
+            return List.of();
+        }
+
+        Map<Long, ProjectScopeRow> taskGroups = findTaskGroupScopes(taskWriteModels.stream()
+                .map(TaskBulkCreateWriteModel::getTaskGroupId)
+                .collect(Collectors.toSet()));
+        Map<Long, User> owners = findOwners(taskWriteModels.stream().map(TaskWriteModel::getOwner));
+        Map<Long, String> lastRanks = findLastRanks(taskGroups.keySet());
+
+        TaskCountChanges countChanges = new TaskCountChanges();
+        List<Task> tasks = new ArrayList<>(taskWriteModels.size());
+        for(TaskBulkCreateWriteModel taskWriteModel : taskWriteModels){
+            Task task = TaskMapper.INSTANCE.toTask(taskWriteModel);
+            task.setTaskGroup(taskGroupRepository.getReferenceById(taskWriteModel.getTaskGroupId()));
+            task.setRank(appendRank(lastRanks, taskWriteModel.getTaskGroupId()));
+            if(Objects.nonNull(taskWriteModel.getOwner())){
+                task.setTaskOwner(owners.get(taskWriteModel.getOwner().getId()));
             }
+            tasks.add(task);
+            countChanges.taskCreated(taskGroups.get(taskWriteModel.getTaskGroupId()).getProjectId(), task.getStatus(), task.getPriority());
         }
-        String taskValue = task.toString();
-        Task savedTask = taskRepository.save(toSave);
 
-        taskHistoryService.addHistoryEntry("Task updated from value: \n" + taskValue + "\n to: \n" + savedTask, savedTask.getId());
-        return TaskMapper.INSTANCE.toReadModel(savedTask);
+        List<Task> savedTasks = taskRepository.saveAll(tasks);
+        taskHistoryService.saveAll(savedTasks.stream()
+                .map(taskHistoryService::created)
+                .collect(Collectors.toList()));
+        projectStatisticsService.apply(countChanges);
+
+        return savedTasks.stream()
+                .map(TaskMapper.INSTANCE::toReadModel)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Changes status, priority, owner or task group of all tasks in one transaction. Tasks put into a task group go to
+     * its end. Owners get one notification per distinct status change instead of one per task.
+     */
+    @Transactional
+    public List<TaskReadModel> updateTasks(List<TaskBulkUpdateWriteModel> taskWriteModels){
+        checkBulkSize(taskWriteModels.size());
+        SecurityUtil.checkUserPermission(Permission.PermissionEnum.TASK_UPDATE);
+        if(taskWriteModels.isEmpty()){
+            return List.of();
+        }
+
+        Set<Long> taskIds = taskWriteModels.stream()
+                .map(TaskBulkUpdateWriteModel::getTaskId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, Long> projectIds = findTaskScopes(taskIds).values().stream()
+                .collect(Collectors.toMap(TaskScopeRow::getId, TaskScopeRow::getProjectId));
+        Map<Long, ProjectScopeRow> taskGroups = findTaskGroupScopes(taskWriteModels.stream()
+                .map(TaskBulkUpdateWriteModel::getTaskGroupId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        Map<Long, User> owners = findOwners(taskWriteModels.stream().map(TaskBulkUpdateWriteModel::getOwner));
+        Map<Long, String> lastRanks = findLastRanks(taskGroups.keySet());
+        Map<Long, Task> tasks = taskRepository.findAllWithWatchersByIdIn(taskIds).stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+
+        TaskCountChanges countChanges = new TaskCountChanges();
+        List<TaskHistory> histories = new ArrayList<>(taskWriteModels.size());
+        Map<String, Set<User>> notifications = new LinkedHashMap<>();
+        for(TaskBulkUpdateWriteModel taskWriteModel : taskWriteModels){
+            Task task = tasks.get(taskWriteModel.getTaskId());
+            Map<String, String> taskValues = taskHistoryService.snapshot(task);
+            TaskStatus oldStatus = task.getStatus();
+            TaskPriority oldPriority = task.getPriority();
+            long oldProjectId = projectIds.get(task.getId());
+            long newProjectId = oldProjectId;
+
+            if(Objects.nonNull(taskWriteModel.getStatus())){
+                task.setStatus(taskWriteModel.getStatus());
+            }
+            if(Objects.nonNull(taskWriteModel.getPriority())){
+                task.setPriority(taskWriteModel.getPriority());
+            }
+            if(Objects.nonNull(taskWriteModel.getOwner())){
+                task.setTaskOwner(owners.get(taskWriteModel.getOwner().getId()));
+            }
+            if(Objects.nonNull(taskWriteModel.getTaskGroupId())){
+                task.setTaskGroup(taskGroupRepository.getReferenceById(taskWriteModel.getTaskGroupId()));
+                task.setRank(appendRank(lastRanks, taskWriteModel.getTaskGroupId()));
+                newProjectId = taskGroups.get(taskWriteModel.getTaskGroupId()).getProjectId();
+                projectIds.put(task.getId(), newProjectId);
+            }
+
+            if(oldStatus != task.getStatus() || oldPriority != task.getPriority() || oldProjectId != newProjectId){
+                countChanges.taskChanged(oldProjectId, oldStatus, oldPriority, newProjectId, task.getStatus(), task.getPriority());
+            }
+            if(Objects.nonNull(task.getTaskOwner()) && oldStatus != task.getStatus()){
+                String message = String.format("Status of your task was changed from %s to %s", oldStatus, task.getStatus());
+                notifications.computeIfAbsent(message, key -> new LinkedHashSet<>()).add(task.getTaskOwner());
+            }
+            histories.add(taskHistoryService.updated(taskValues, task));
+        }
+
+        // the task updates go out as one batch before the history entries are inserted
+        try {
+            taskRepository.flush();
+        } catch (ObjectOptimisticLockingFailureException e){
+            throw new TaskVersionConflictException();
+        }
+        taskHistoryService.saveAll(histories);
+        projectStatisticsService.apply(countChanges);
+        notifications.forEach((message, users) -> notificationService.createNotification(users, message, NotificationStatus.UNREAD));
+
+        return taskIds.stream()
+                .map(tasks::get)
+                .map(TaskMapper.INSTANCE::toReadModel)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Puts the task between two tasks of the given task group, which may be another group than its current one. Only
+     * the moved task is written, with a rank between the ranks of its new neighbours. Its version is not bumped, the
+     * place of a task is not part of what {@link #updateTask} and {@link #patchTask} guard.
+     */
+    @Transactional
+    public void moveTask(long taskId, TaskMoveWriteModel move){
+        TaskScopeRow task = findTaskScopes(Set.of(taskId)).get(taskId);
+        ProjectScopeRow taskGroup = findTaskGroupScopes(Set.of(move.getTaskGroupId())).get(move.getTaskGroupId());
+        SecurityUtil.checkUserPermission(Permission.PermissionEnum.TASK_UPDATE);
+
+        String rank = rankBetween(move);
+        if(Objects.isNull(rank) || taskRankService.isTooLong(rank)){
+            taskRankService.rebalance(move.getTaskGroupId());
+            rank = rankBetween(move);
+            if(Objects.isNull(rank)){
+                // the neighbours are in the other order, the client has to reload the group
+                throw new TaskOrderConflictException();
+            }
+        }
+        taskRepository.moveTask(taskId, move.getTaskGroupId(), rank);
+
+        if(task.getProjectId() != taskGroup.getProjectId()){
+            TaskCountChanges countChanges = new TaskCountChanges();
+            countChanges.taskChanged(task.getProjectId(), task.getStatus(), task.getPriority(),
+                    taskGroup.getProjectId(), task.getStatus(), task.getPriority());
+            projectStatisticsService.apply(countChanges);
+        }
+    }
+
+    // null when the neighbours have equal ranks or are in the wrong order
+    private String rankBetween(TaskMoveWriteModel move){
+        if(Objects.isNull(move.getAfterTaskId()) && Objects.isNull(move.getBeforeTaskId())){
+            return RankUtil.after(taskRepository.findLastRank(move.getTaskGroupId()).orElse(null));
+        }
+        Set<Long> neighbourIds = Stream.of(move.getAfterTaskId(), move.getBeforeTaskId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, String> ranks = new HashMap<>();
+        taskRepository.lockRanks(neighbourIds, move.getTaskGroupId()).forEach(row -> ranks.put(row.getId(), row.getRank()));
+        if(ranks.size() != neighbourIds.size()){
+            throw new NoSuchEntityException();
+        }
+        String lower = Objects.isNull(move.getAfterTaskId()) ? null : ranks.get(move.getAfterTaskId());
+        String upper = Objects.isNull(move.getBeforeTaskId()) ? null : ranks.get(move.getBeforeTaskId());
+        if(Objects.nonNull(lower) && Objects.nonNull(upper) && lower.compareTo(upper) >= 0){
+            return null;
+        }
+        return Objects.isNull(upper) ? RankUtil.after(lower) : RankUtil.between(lower, upper);
+    }
+
+    @Transactional
+    public void deleteTasks(List<Long> taskIds){
+        checkBulkSize(taskIds.size());
+        SecurityUtil.checkUserPermission(Permission.PermissionEnum.TASK_DELETE);
+        if(taskIds.isEmpty()){
+            return;
+        }
+
+        Set<Long> distinctTaskIds = new LinkedHashSet<>(taskIds);
+        TaskCountChanges countChanges = new TaskCountChanges();
+        for(TaskScopeRow task : findTaskScopes(distinctTaskIds).values()){
+            countChanges.taskDeleted(task.getProjectId(), task.getStatus(), task.getPriority());
+        }
+
+        taskRepository.deleteWatchersByTaskIdIn(distinctTaskIds);
+        taskRepository.deleteAllByIdIn(distinctTaskIds);
+        projectStatisticsService.apply(countChanges);
+    }
+
+    private void checkBulkSize(int size){
+        if(size > maxBulkSize){
+            throw new BulkSizeExceededException(maxBulkSize);
+        }
+    }
+
+    private Map<Long, TaskScopeRow> findTaskScopes(Set<Long> taskIds){
+        List<TaskScopeRow> rows = taskRepository.findScopeRowsByIdIn(taskIds);
+        checkScopes(taskIds, rows);
+        return rows.stream().collect(Collectors.toMap(TaskScopeRow::getId, Function.identity()));
+    }
+
+    private Map<Long, ProjectScopeRow> findTaskGroupScopes(Set<Long> taskGroupIds){
+        if(taskGroupIds.isEmpty()){
+            return Map.of();
+        }
+        List<ProjectScopeRow> rows = taskGroupRepository.findScopeRowsByIdIn(taskGroupIds);
+        checkScopes(taskGroupIds, rows);
+        return rows.stream().collect(Collectors.toMap(ProjectScopeRow::getId, Function.identity()));
+    }
+
+    // every id has to exist and the user has to be part of the organization of every distinct project
+    private void checkScopes(Set<Long> ids, List<? extends ProjectScopeRow> rows){
+        if(rows.size() != ids.size()){
+            throw new NoSuchEntityException();
+        }
+        rows.stream()
+                .map(ProjectScopeRow::getOrganizationId)
+                .distinct()
+                .forEach(SecurityUtil::checkIfUserIsPartOfOrganization);
+    }
+
+    // read up front, a native query in the middle of a bulk change would flush the tasks changed so far
+    private Map<Long, String> findLastRanks(Set<Long> taskGroupIds){
+        Map<Long, String> lastRanks = new HashMap<>();
+        taskGroupIds.forEach(taskGroupId -> lastRanks.put(taskGroupId, taskRepository.findLastRank(taskGroupId).orElse(null)));
+        return lastRanks;
+    }
+
+    private static String appendRank(Map<Long, String> lastRanks, long taskGroupId){
+        String rank = RankUtil.after(lastRanks.get(taskGroupId));
+        lastRanks.put(taskGroupId, rank);
+        return rank;
+    }
+
+    private User findOwner(OwnerWriteModel owner){
+        return userRepository.findById(owner.getId()).orElseThrow(NoSuchEntityException::new);
+    }
+
+    private Map<Long, User> findOwners(Stream<OwnerWriteModel> owners){
+        Set<Long> ownerIds = owners
+                .filter(Objects::nonNull)
+                .map(OwnerWriteModel::getId)
+                .collect(Collectors.toSet());
+        if(ownerIds.isEmpty()){
+            return Map.of();
+        }
+        List<User> users = userRepository.findAllById(ownerIds);
+        if(users.size() != ownerIds.size()){
+            throw new NoSuchEntityException();
+        }
+        return users.stream().collect(Collectors.toMap(User::getId, Function.identity()));
     }
 }
@@ -1,6 +1,8 @@
 package pl.wolniarskim.project_management.services;
 
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.supercsv.io.CsvBeanWriter;
 import org.supercsv.io.ICsvBeanWriter;
@@ -9,33 +11,49 @@ import pl.wolniarskim.project_management.mappers.TaskTimeEntryMapper;
 import pl.wolniarskim.project_management.models.*;
 import pl.wolniarskim.project_management.models.DTO.TaskTimeEntryReadModel;
 import pl.wolniarskim.project_management.models.DTO.TaskTimeEntryWriteModel;
+import pl.wolniarskim.project_management.models.DTO.TimeEntryFilter;
 import pl.wolniarskim.project_management.models.DTO.TimeEntryGenerateDTO;
+import pl.wolniarskim.project_management.models.DTO.TimeEntryPage;
+import pl.wolniarskim.project_management.models.DTO.TimeEntryTotalsRow;
 import pl.wolniarskim.project_management.repositories.ProjectRepository;
 import pl.wolniarskim.project_management.repositories.TaskRepository;
 import pl.wolniarskim.project_management.repositories.TaskTimeEntryRepository;
 import pl.wolniarskim.project_management.utils.SecurityUtil;
 
 import javax.servlet.http.HttpServletResponse;
+import javax.transaction.Transactional;
 import java.io.IOException;
+import java.io.Writer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.*;
 import static pl.wolniarskim.project_management.utils.SecurityUtil.getLoggedUserId;
 import static pl.wolniarskim.project_management.utils.SecurityUtil.isUserHavingPermission;
 
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class TaskTimeEntryService {
 
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+    private static final LocalDateTime EARLIEST_TIME_ENTRY = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST_TIME_ENTRY = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final TaskTimeEntryRepository taskTimeEntryRepository;
     private final TaskRepository taskRepository;
     private final TaskTimeEntryMapper taskTimeEntryMapper;
     private final ProjectRepository projectRepository;
 
+    @Value("${timesheet.page-size:50}")
+    private int defaultPageSize;
+    @Value("${timesheet.max-page-size:500}")
+    private int maxPageSize;
+
     public TaskTimeEntryReadModel addTimeEntry(TaskTimeEntryWriteModel taskTimeEntryWriteModel, long taskId){
         Task task = taskRepository.findById(taskId).orElseThrow();
 
@@ -45,6 +63,7 @@ public class TaskTimeEntryService {
         TaskTimeEntry taskTimeEntry = taskTimeEntryMapper.toTaskTimeEntry(taskTimeEntryWriteModel);
         taskTimeEntry.setTask(task);
         taskTimeEntry.setUser(SecurityUtil.getLoggedUser());
+        taskTimeEntry.setCreatedAt(LocalDateTime.now());
         return taskTimeEntryMapper.fromTimeEntry(taskTimeEntryRepository.save(taskTimeEntry));
     }
 
@@ -55,34 +74,43 @@ public class TaskTimeEntryService {
         taskTimeEntryRepository.deleteById(taskTimeEntryId);
     }
 
-    public List<TaskTimeEntryReadModel> getTimeEntries(long projectId){
-        return getTimeEntriesFromDatabase(projectId)
-                .stream().map(taskTimeEntryMapper::fromTimeEntry)
-                .collect(Collectors.toList());
-    }
-
-    public List<TaskTimeEntry> getTimeEntriesFromDatabase(long projectId){
+    public TimeEntryPage getTimeEntries(long projectId, TimeEntryFilter filter){
         Project project = projectRepository.findById(projectId).orElseThrow();
         SecurityUtil.checkIfUserIsPartOfOrganization(project.getOrganization().getOrgId());
 
-        if(isUserHavingPermission(TIME_ENTRY_READ_ALL)){
-            return taskTimeEntryRepository.findAllByProjectId(projectId);
-        }
-        else{
-            return taskTimeEntryRepository.findAllByUserIdAndProjectId(getLoggedUserId(), projectId);
-        }
+        Long userId = isUserHavingPermission(TIME_ENTRY_READ_ALL) ? filter.getUserId() : Long.valueOf(getLoggedUserId());
+        LocalDateTime from = getFrom(filter);
+        LocalDateTime to = getTo(filter);
+        int pageSize = getPageSize(filter);
+
+        List<TaskTimeEntryReadModel> timeEntries = taskTimeEntryRepository.findPageByProjectId(projectId, getCursor(filter),
+                userId, isDated(filter), from, to, PageRequest.of(0, pageSize + 1));
+        TimeEntryTotalsRow totals = filter.getCursor() == null
+                ? taskTimeEntryRepository.getTotalsByProjectId(projectId, userId, isDated(filter), from, to)
+                : null;
+        return toPage(timeEntries, pageSize, totals);
     }
 
-    public List<TaskTimeEntryReadModel> getTimeEntriesForTask(long taskId){
+    public TimeEntryPage getTimeEntriesForTask(long taskId, TimeEntryFilter filter){
         Task task = taskRepository.findById(taskId).orElseThrow();
         SecurityUtil.checkIfUserIsPartOfOrganization(task.getTaskGroup().getProject().getOrganization().getOrgId());
 
-        return taskTimeEntryRepository.findAllByTask_Id(taskId).stream()
-                .map(taskTimeEntryMapper::fromTimeEntry)
-                .collect(Collectors.toList());
+        LocalDateTime from = getFrom(filter);
+        LocalDateTime to = getTo(filter);
+        int pageSize = getPageSize(filter);
+
+        List<TaskTimeEntryReadModel> timeEntries = taskTimeEntryRepository.findPageByTaskId(taskId, getCursor(filter),
+                filter.getUserId(), isDated(filter), from, to, PageRequest.of(0, pageSize + 1));
+        TimeEntryTotalsRow totals = filter.getCursor() == null
+                ? taskTimeEntryRepository.getTotalsByTaskId(taskId, filter.getUserId(), isDated(filter), from, to)
+                : null;
+        return toPage(timeEntries, pageSize, totals);
     }
-    public void exportTimeEntry(HttpServletResponse response, long projectId) throws IOException {
 
+    @Transactional
+    public void exportTimeEntry(HttpServletResponse response, long projectId) throws IOException {
+        Project project = projectRepository.findById(projectId).orElseThrow();
+        SecurityUtil.checkIfUserIsPartOfOrganization(project.getOrganization().getOrgId());
         SecurityUtil.checkUserPermission(TIME_ENTRY_READ_ALL);
 
         response.setContentType("text/csv");
@@ -93,24 +121,71 @@ public class TaskTimeEntryService {
         String headerValue = "attachment; filename=users_" + currentDateTime + ".csv";
         response.setHeader(headerKey, headerValue);
 
-        List<TaskTimeEntry> timeEntries = getTimeEntriesFromDatabase(projectId);
+        writeTimeEntriesCsv(response.getWriter(), projectId);
+    }
 
-        ICsvBeanWriter csvWriter = new CsvBeanWriter(response.getWriter(), CsvPreference.STANDARD_PREFERENCE);
+    /**
+     * Writes all time entries of the project as CSV without any permission checks, callers have to do them.
+     * The writer is flushed every {@value #EXPORT_FLUSH_INTERVAL} rows and closed at the end.
+     */
+    @Transactional
+    public void writeTimeEntriesCsv(Writer writer, long projectId) throws IOException {
         String[] csvHeader = {"Hours spent", "Time description", "User email", "Task name"};
         String[] nameMapping = {"hoursSpent", "description", "email", "taskName"};
 
-        csvWriter.writeHeader(csvHeader);
-
+        try (ICsvBeanWriter csvWriter = new CsvBeanWriter(writer, CsvPreference.STANDARD_PREFERENCE);
+             Stream<TimeEntryGenerateDTO> timeEntries = taskTimeEntryRepository.streamExportRowsByProjectId(projectId)
+                     .map(row -> new TimeEntryGenerateDTO(row.getHoursSpent(), row.getDescription(), row.getEmail(), row.getTaskName()))) {
+            csvWriter.writeHeader(csvHeader);
+            csvWriter.flush();
+
+            Iterator<TimeEntryGenerateDTO> iterator = timeEntries.iterator();
+            int writtenRows = 0;
+            while (iterator.hasNext()) {
+                csvWriter.write(iterator.next(), nameMapping);
+                if (++writtenRows % EXPORT_FLUSH_INTERVAL == 0) {
+                    csvWriter.flush();
+                }
+            }
+        }
+    }
 
+    private TimeEntryPage toPage(List<TaskTimeEntryReadModel> timeEntries, int pageSize, TimeEntryTotalsRow totals){
+        TimeEntryPage page = new TimeEntryPage();
+        // one more row than requested is read to know if there is a next page
+        if(timeEntries.size() > pageSize){
+            timeEntries = timeEntries.subList(0, pageSize);
+            page.setNextCursor(timeEntries.get(pageSize - 1).getId());
+        }
+        page.setTimeEntries(timeEntries);
+        if(totals != null){
+            page.setTotalHours(totals.getTotalHours());
+            page.setTotalBillableHours(totals.getTotalBillableHours());
+            page.setTotalNonBillableHours(totals.getTotalHours() - totals.getTotalBillableHours());
+        }
+        return page;
+    }
 
-        for (TaskTimeEntry timeEntry : timeEntries) {
-            csvWriter.write(new TimeEntryGenerateDTO(
-                    timeEntry.getHoursSpent(),
-                    timeEntry.getDescription(),
-                    timeEntry.getUser().getEmail(),
-                    timeEntry.getTask().getName()), nameMapping);
+    private int getPageSize(TimeEntryFilter filter){
+        if(filter.getSize() == null || filter.getSize() <= 0){
+            return defaultPageSize;
         }
+        return Math.min(filter.getSize(), maxPageSize);
+    }
+
+    private static long getCursor(TimeEntryFilter filter){
+        return filter.getCursor() == null ? Long.MAX_VALUE : filter.getCursor();
+    }
+
+    private static boolean isDated(TimeEntryFilter filter){
+        return filter.getFrom() != null || filter.getTo() != null;
+    }
+
+    private static LocalDateTime getFrom(TimeEntryFilter filter){
+        return filter.getFrom() == null ? EARLIEST_TIME_ENTRY : filter.getFrom().atStartOfDay();
+    }
 
-        csvWriter.close();
+    private static LocalDateTime getTo(TimeEntryFilter filter){
+        return filter.getTo() == null ? LATEST_TIME_ENTRY : filter.getTo().plusDays(1).atStartOfDay();
     }
 }
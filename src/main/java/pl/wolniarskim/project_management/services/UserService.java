@@ -8,6 +8,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import pl.wolniarskim.project_management.exceptions.EmailAlreadyTakenException;
+import pl.wolniarskim.project_management.exceptions.NoSuchEntityException;
 import pl.wolniarskim.project_management.exceptions.PermissionDeniedException;
 import pl.wolniarskim.project_management.exceptions.TokenExpiredException;
 import pl.wolniarskim.project_management.mappers.OrganizationMapper;
@@ -23,7 +24,6 @@ import pl.wolniarskim.project_management.repositories.UserRepository;
 import javax.transaction.Transactional;
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.Base64;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
@@ -43,6 +43,7 @@ public class UserService implements UserDetailsService {
     private final OrganizationMapper organizationMapper;
     private final ResetPasswordTokenRepository resetPasswordTokenRepository;
     private final EmailService emailService;
+    private final ProfileImageService profileImageService;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -126,13 +127,14 @@ public class UserService implements UserDetailsService {
     }
 
     public ProfileDetails uploadProfileImage(MultipartFile file) throws IOException {
-        User loggedUser = getLoggedUser();
-        loggedUser.setProfileImage(Base64.getEncoder().encodeToString(file.getBytes()));
+        String profileImageHash = profileImageService.store(file.getBytes());
+        User loggedUser = reloadLoggedUser();
+        loggedUser.setProfileImageHash(profileImageHash);
 
         userRepository.save(loggedUser);
 
         return ProfileDetails.builder()
-                .profileImage(loggedUser.getProfileImage())
+                .profileImageHash(loggedUser.getProfileImageHash())
                 .lastName(loggedUser.getLastName())
                 .firstName(loggedUser.getFirstName())
                 .nick(loggedUser.getNick())
@@ -143,7 +145,7 @@ public class UserService implements UserDetailsService {
         User loggedUser = getLoggedUser();
 
         ProfileDetails.ProfileDetailsBuilder detailsBuilder = ProfileDetails.builder()
-                .profileImage(loggedUser.getProfileImage())
+                .profileImageHash(loggedUser.getProfileImageHash())
                 .lastName(loggedUser.getLastName())
                 .firstName(loggedUser.getFirstName())
                 .nick(loggedUser.getNick())
@@ -157,7 +159,7 @@ public class UserService implements UserDetailsService {
     }
 
     public void saveUserProfile(ProfileDetailsWriteModel profileDetailsWriteModel) {
-        User loggedUser = getLoggedUser();
+        User loggedUser = reloadLoggedUser();
 
         loggedUser.setFirstName(profileDetailsWriteModel.getFirstName());
         loggedUser.setLastName(profileDetailsWriteModel.getLastName());
@@ -165,4 +167,9 @@ public class UserService implements UserDetailsService {
         userRepository.save(loggedUser);
     }
 
+    // the logged user is cached and shared by all requests of the user, so it is never changed in place
+    private User reloadLoggedUser(){
+        return userRepository.findById(getLoggedUser().getId())
+                .orElseThrow(NoSuchEntityException::new);
+    }
 }
@@ -0,0 +1,40 @@
+package pl.wolniarskim.project_management.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Finds emails of users mentioned in a comment as {@code @@@@email@@@@}. The content is scanned once, only the emails
+ * are copied out of it. A marker without its closing pair is not a mention.
+ */
+public class MentionParser {
+
+    private static final String MARKER = "@@@@";
+
+    private MentionParser() {
+    }
+
+    public static Set<String> findMentionedEmails(String content){
+        if(content == null){
+            return Collections.emptySet();
+        }
+        Set<String> emails = new LinkedHashSet<>();
+        int position = 0;
+        while(true){
+            int start = content.indexOf(MARKER, position);
+            if(start < 0){
+                break;
+            }
+            int end = content.indexOf(MARKER, start + MARKER.length());
+            if(end < 0){
+                break;
+            }
+            if(end > start + MARKER.length()){
+                emails.add(content.substring(start + MARKER.length(), end));
+            }
+            position = end + MARKER.length();
+        }
+        return emails;
+    }
+}
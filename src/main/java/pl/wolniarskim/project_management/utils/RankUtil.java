@@ -0,0 +1,124 @@
+package pl.wolniarskim.project_management.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rank keys which order tasks within a task group. A key is the fraction digits of a base 36 number between 0 and 1
+ * written without trailing zeros, so keys compare as strings the same way as the numbers they stand for and there is
+ * always another key between two keys. Putting a task between two others only needs a new key for that task.
+ */
+public class RankUtil {
+
+    private static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+    // keys appended at the end grow by one in this digit, so appending does not make them longer
+    private static final int APPEND_WIDTH = 6;
+
+    private RankUtil() {
+    }
+
+    /**
+     * Key between {@code lower} and {@code upper}, null stands for the start or the end of the group.
+     */
+    public static String between(String lower, String upper){
+        String low = lower == null ? "" : lower;
+        if(upper != null && low.compareTo(upper) >= 0){
+            throw new IllegalArgumentException("Rank " + lower + " is not lower than " + upper);
+        }
+        return midpoint(low, upper);
+    }
+
+    /**
+     * Key after {@code lower}, the first key of a group when it is null.
+     */
+    public static String after(String lower){
+        if(lower == null){
+            return between(null, null);
+        }
+        int width = Math.max(lower.length(), APPEND_WIDTH);
+        int[] digits = new int[width];
+        for(int i = 0; i < lower.length(); i++){
+            digits[i] = digit(lower.charAt(i));
+        }
+        for(int i = width - 1; i >= 0; i--){
+            if(digits[i] < BASE - 1){
+                digits[i]++;
+                return toKey(digits);
+            }
+            digits[i] = 0;
+        }
+        // every digit was the last one, only a longer key fits
+        return between(lower, null);
+    }
+
+    /**
+     * {@code count} ascending keys spread evenly, as short as {@code count} allows.
+     */
+    public static List<String> spread(int count){
+        int width = 1;
+        long slots = BASE;
+        while(slots <= count){
+            width++;
+            slots *= BASE;
+        }
+        long step = slots / (count + 1);
+        List<String> keys = new ArrayList<>(count);
+        for(int i = 1; i <= count; i++){
+            long value = i * step;
+            int[] digits = new int[width];
+            for(int position = width - 1; position >= 0; position--){
+                digits[position] = (int) (value % BASE);
+                value /= BASE;
+            }
+            keys.add(toKey(digits));
+        }
+        return keys;
+    }
+
+    private static String midpoint(String lower, String upper){
+        if(upper != null){
+            int prefix = 0;
+            while(prefix < upper.length() && digitAt(lower, prefix) == digit(upper.charAt(prefix))){
+                prefix++;
+            }
+            if(prefix > 0){
+                String rest = prefix < lower.length() ? lower.substring(prefix) : "";
+                return upper.substring(0, prefix) + midpoint(rest, upper.substring(prefix));
+            }
+        }
+        int lowDigit = digitAt(lower, 0);
+        int highDigit = upper == null ? BASE : digit(upper.charAt(0));
+        if(highDigit - lowDigit > 1){
+            return String.valueOf(DIGITS.charAt((lowDigit + highDigit + 1) / 2));
+        }
+        if(upper != null && upper.length() > 1){
+            return upper.substring(0, 1);
+        }
+        return DIGITS.charAt(lowDigit) + midpoint(lower.isEmpty() ? "" : lower.substring(1), null);
+    }
+
+    private static String toKey(int[] digits){
+        int length = digits.length;
+        while(length > 0 && digits[length - 1] == 0){
+            length--;
+        }
+        StringBuilder key = new StringBuilder(length);
+        for(int i = 0; i < length; i++){
+            key.append(DIGITS.charAt(digits[i]));
+        }
+        return key.toString();
+    }
+
+    private static int digitAt(String key, int position){
+        return position < key.length() ? digit(key.charAt(position)) : 0;
+    }
+
+    private static int digit(char character){
+        int digit = DIGITS.indexOf(character);
+        if(digit < 0){
+            throw new IllegalArgumentException("Not a rank digit: " + character);
+        }
+        return digit;
+    }
+}
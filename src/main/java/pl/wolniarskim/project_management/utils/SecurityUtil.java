@@ -6,8 +6,6 @@ import pl.wolniarskim.project_management.models.*;
 
 import java.util.Objects;
 
-import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.ALLOW_ALL;
-
 public class SecurityUtil {
 
     public static User getLoggedUser(){
@@ -23,14 +21,13 @@ public class SecurityUtil {
     }
 
     public static void checkUserPermission(Permission.PermissionEnum permissionEnum){
-        User loggedUser = getLoggedUser();
-        if(loggedUser.getMainRole().getPermissions().stream().noneMatch(permission -> permission.getName() == permissionEnum || permission.getName() == ALLOW_ALL)){
+        if(!isUserHavingPermission(permissionEnum)){
             throw new PermissionDeniedException();
         }
     }
 
     public static boolean isUserHavingPermission(Permission.PermissionEnum permissionEnum){
-        return getLoggedUser().getMainRole().getPermissions().stream().anyMatch(permission -> permission.getName() == permissionEnum || permission.getName() == ALLOW_ALL);
+        return getUser().getMainRole().hasPermission(permissionEnum);
     }
 
     public static void checkIfUserIsPartOfOrganization(long organizationId){
@@ -0,0 +1,79 @@
+package pl.wolniarskim.project_management.utils;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * HS256 algorithm which keeps one initialized {@link Mac} per thread instead of creating a new one for every
+ * signature like {@link Algorithm#HMAC256(String)} does.
+ */
+public class ThreadLocalHmacAlgorithm extends Algorithm {
+
+    private static final String ALGORITHM_NAME = "HS256";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final byte JWT_PART_SEPARATOR = (byte) '.';
+
+    private final String keyId;
+    private final ThreadLocal<Mac> mac;
+
+    public ThreadLocalHmacAlgorithm(String keyId, String secret) {
+        super(ALGORITHM_NAME, MAC_ALGORITHM);
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("The secret cannot be empty");
+        }
+        this.keyId = keyId;
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> createMac(key));
+    }
+
+    @Override
+    public String getSigningKeyId() {
+        return keyId;
+    }
+
+    @Override
+    public void verify(DecodedJWT jwt) throws SignatureVerificationException {
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(jwt.getSignature());
+            byte[] expected = sign(jwt.getHeader().getBytes(StandardCharsets.UTF_8),
+                    jwt.getPayload().getBytes(StandardCharsets.UTF_8));
+            if (!MessageDigest.isEqual(expected, signature)) {
+                throw new SignatureVerificationException(this);
+            }
+        } catch (IllegalArgumentException | SignatureGenerationException e) {
+            throw new SignatureVerificationException(this, e);
+        }
+    }
+
+    @Override
+    public byte[] sign(byte[] headerBytes, byte[] payloadBytes) throws SignatureGenerationException {
+        Mac threadMac = mac.get();
+        threadMac.update(headerBytes);
+        threadMac.update(JWT_PART_SEPARATOR);
+        return threadMac.doFinal(payloadBytes);
+    }
+
+    @Override
+    public byte[] sign(byte[] contentBytes) throws SignatureGenerationException {
+        return mac.get().doFinal(contentBytes);
+    }
+
+    private static Mac createMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not initialize " + MAC_ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+alter table task_time_entry add column billable boolean default true;
+
+-- existing entries have no known date, only new ones get the current timestamp
+alter table task_time_entry add column created_at timestamp;
+alter table task_time_entry alter column created_at set default now();
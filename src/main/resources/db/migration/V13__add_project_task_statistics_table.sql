@@ -0,0 +1,15 @@
+create table project_task_statistics(
+    project_id int not null,
+    status varchar(15) not null,
+    priority varchar(15) not null,
+    task_count bigint not null default 0,
+    primary key(project_id, status, priority)
+);
+
+alter table project_task_statistics add foreign key(project_id) references projects(id) on delete cascade;
+
+insert into project_task_statistics(project_id, status, priority, task_count)
+select tg.project_id, coalesce(t.status, 'NONE'), coalesce(t.priority, 'NONE'), count(*)
+from tasks t
+inner join task_groups tg on t.task_group_id = tg.id
+group by tg.project_id, coalesce(t.status, 'NONE'), coalesce(t.priority, 'NONE');
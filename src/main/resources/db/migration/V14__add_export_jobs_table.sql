@@ -0,0 +1,13 @@
+create table export_jobs(
+    id serial primary key,
+    project_id int not null,
+    snapshot varchar(50) not null,
+    status varchar(15) not null,
+    created_at timestamp not null default now(),
+    finished_at timestamp
+);
+
+alter table export_jobs add foreign key(project_id) references projects(id) on delete cascade;
+
+-- only one live job per project snapshot, concurrent requests for the same data end up on the same job
+create unique index export_jobs_project_snapshot_idx on export_jobs(project_id, snapshot) where status in ('PENDING', 'RUNNING', 'DONE');
@@ -0,0 +1,3 @@
+-- timesheet pages are read newest first, per task or per user
+create index task_time_entry_task_id_idx on task_time_entry(task_id, id);
+create index task_time_entry_user_id_idx on task_time_entry(user_id, id);
@@ -0,0 +1,2 @@
+-- field level changes of the task encoded as json, description keeps a short summary
+alter table task_histories add column changes text;
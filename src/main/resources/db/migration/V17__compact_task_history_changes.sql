@@ -0,0 +1,4 @@
+-- changes are stored by TaskChangeCodec, first byte tells if the rest is plain or deflated json
+alter table task_histories alter column changes type bytea using case when changes is null then null else '\x00'::bytea || convert_to(changes, 'UTF8') end;
+
+create index task_histories_task_id_idx on task_histories(task_id, id);
@@ -0,0 +1,14 @@
+-- notifications waiting for the dispatcher, one row per event no matter how many users it fans out to
+create table notification_outbox(
+    id bigserial primary key,
+    recipient_ids bigint[] not null,
+    notification_content varchar(300) not null,
+    status varchar(20) not null,
+    created_at timestamp not null default now(),
+    attempts int not null default 0,
+    next_attempt_at timestamp not null default now(),
+    failed_at timestamp,
+    last_error varchar(500)
+);
+
+create index notification_outbox_due_idx on notification_outbox(next_attempt_at, id) where failed_at is null;
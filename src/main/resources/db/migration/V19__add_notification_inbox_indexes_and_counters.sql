@@ -0,0 +1,15 @@
+create index notifications_related_to_id_idx on notifications(related_to_id, id);
+create index notifications_unread_idx on notifications(related_to_id, id) where status = 'UNREAD';
+
+-- number of unread notifications of every user, kept up to date by notification writes
+create table notification_counters(
+    user_id int primary key,
+    unread_count bigint not null default 0
+);
+
+alter table notification_counters add foreign key(user_id) references users(id) on delete cascade;
+
+insert into notification_counters(user_id, unread_count)
+select related_to_id, count(*) from notifications
+where status = 'UNREAD' and related_to_id is not null
+group by related_to_id;
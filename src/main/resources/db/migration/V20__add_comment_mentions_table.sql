@@ -0,0 +1,14 @@
+-- users mentioned in a comment, an edit only notifies users which were not mentioned before
+create table comment_mentions(
+    comment_id int not null,
+    user_id int not null,
+    primary key(comment_id, user_id)
+);
+
+alter table comment_mentions add foreign key(comment_id) references comments(id) on delete cascade;
+alter table comment_mentions add foreign key(user_id) references users(id) on delete cascade;
+
+insert into comment_mentions(comment_id, user_id)
+select distinct c.id, u.id from comments c
+cross join lateral regexp_matches(c.content, '@@@@(.*?)@@@@', 'g') as mention(email)
+inner join users u on u.email = mention.email[1];
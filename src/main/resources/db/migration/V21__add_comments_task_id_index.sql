@@ -0,0 +1 @@
+create index comments_task_id_created_time_idx on comments(task_id, created_time, id);
@@ -0,0 +1,2 @@
+-- images are moved to the profile image store on startup, profile_image is emptied once its image is moved
+alter table users add column profile_image_hash varchar(64);
@@ -0,0 +1,2 @@
+create index projects_organization_id_idx on projects(organization_org_id, id);
+create index projects_users_user_id_idx on projects_users(user_id, project_id);
@@ -0,0 +1,2 @@
+create index task_groups_project_id_idx on task_groups(project_id, id);
+create index tasks_task_group_id_idx on tasks(task_group_id, id);
@@ -0,0 +1,6 @@
+-- ids of entities saved through JPA are taken from these sequences in blocks of 50, which lets inserts be batched
+alter sequence projects_id_seq increment by 50;
+alter sequence task_groups_id_seq increment by 50;
+alter sequence tasks_id_seq increment by 50;
+alter sequence comments_id_seq increment by 50;
+alter sequence task_time_entry_id_seq increment by 50;
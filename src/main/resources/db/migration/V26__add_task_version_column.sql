@@ -0,0 +1,2 @@
+-- optimistic locking of task updates, exposed to clients as the task's ETag
+alter table tasks add column version bigint not null default 0;
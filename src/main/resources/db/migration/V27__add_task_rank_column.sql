@@ -0,0 +1,18 @@
+-- position of a task within its task group, "C" collation compares the keys byte by byte like the application does
+alter table tasks add column rank varchar(255) collate "C";
+
+-- existing tasks keep their order by id, with evenly spaced keys like RankUtil.spread gives: 4 base 36 digits
+-- (36^4 = 1679616 slots) without trailing zeros
+update tasks t set rank = k.rank
+from (
+    select r.id, rtrim((select string_agg(substr('0123456789abcdefghijklmnopqrstuvwxyz',
+                                                 (r.value / power(36, 3 - i)::bigint % 36)::int + 1, 1), '' order by i)
+                        from generate_series(0, 3) i), '0') as rank
+    from (select id, row_number() over (partition by task_group_id order by id)
+                     * (1679616 / (count(*) over (partition by task_group_id) + 1)) as value
+          from tasks) r
+) k
+where k.id = t.id;
+
+alter table tasks alter column rank set not null;
+create index tasks_task_group_id_rank_idx on tasks(task_group_id, rank);
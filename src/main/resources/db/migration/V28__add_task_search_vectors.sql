@@ -0,0 +1,37 @@
+-- full-text search of tasks, the 'simple' configuration does not stem so it works the same for every language
+alter table tasks add column search_vector tsvector;
+alter table comments add column search_vector tsvector;
+
+CREATE OR REPLACE FUNCTION updateTaskSearchVector()
+RETURNS TRIGGER AS $$
+BEGIN
+NEW.search_vector := setweight(to_tsvector('simple', coalesce(NEW.name, '')), 'A')
+    || setweight(to_tsvector('simple', coalesce(NEW.description, '')), 'B');
+RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER updateTaskSearchVectorOnChange
+    BEFORE INSERT OR UPDATE OF name, description ON tasks
+    FOR EACH ROW
+    EXECUTE FUNCTION updateTaskSearchVector();
+
+CREATE OR REPLACE FUNCTION updateCommentSearchVector()
+RETURNS TRIGGER AS $$
+BEGIN
+NEW.search_vector := to_tsvector('simple', coalesce(NEW.content, ''));
+RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER updateCommentSearchVectorOnChange
+    BEFORE INSERT OR UPDATE OF content ON comments
+    FOR EACH ROW
+    EXECUTE FUNCTION updateCommentSearchVector();
+
+-- fills the vectors of existing rows through the triggers
+update tasks set name = name;
+update comments set content = content;
+
+create index tasks_search_vector_idx on tasks using gin(search_vector);
+create index comments_search_vector_idx on comments using gin(search_vector);
@@ -0,0 +1,101 @@
+-- bumped by every write which changes the time entry export of a project, export jobs are deduplicated by it
+alter table projects add column export_version bigint not null default 0;
+
+CREATE OR REPLACE FUNCTION bumpExportVersionOfTask(taskId bigint)
+RETURNS VOID AS $$
+BEGIN
+UPDATE projects SET export_version = export_version + 1
+    WHERE id = (SELECT tg.project_id FROM tasks t INNER JOIN task_groups tg ON t.task_group_id = tg.id WHERE t.id = taskId);
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION bumpExportVersionOfTaskGroup(taskGroupId bigint)
+RETURNS VOID AS $$
+BEGIN
+UPDATE projects SET export_version = export_version + 1
+    WHERE id = (SELECT project_id FROM task_groups WHERE id = taskGroupId);
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION bumpExportVersionOnTimeEntryChange()
+RETURNS TRIGGER AS $$
+BEGIN
+IF TG_OP <> 'INSERT' THEN
+    PERFORM bumpExportVersionOfTask(OLD.task_id);
+END IF;
+IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.task_id IS DISTINCT FROM OLD.task_id) THEN
+    PERFORM bumpExportVersionOfTask(NEW.task_id);
+END IF;
+RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER bumpExportVersionOnTimeEntryChange
+    AFTER INSERT OR UPDATE OR DELETE ON task_time_entry
+    FOR EACH ROW
+    EXECUTE FUNCTION bumpExportVersionOnTimeEntryChange();
+
+-- task names are exported, deleted tasks take their time entries with them
+CREATE OR REPLACE FUNCTION bumpExportVersionOnTaskChange()
+RETURNS TRIGGER AS $$
+BEGIN
+PERFORM bumpExportVersionOfTaskGroup(OLD.task_group_id);
+IF TG_OP = 'UPDATE' AND NEW.task_group_id IS DISTINCT FROM OLD.task_group_id THEN
+    PERFORM bumpExportVersionOfTaskGroup(NEW.task_group_id);
+END IF;
+RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- tasks are updated with all their columns, so only actual changes count
+CREATE TRIGGER bumpExportVersionOnTaskUpdate
+    AFTER UPDATE OF name, task_group_id ON tasks
+    FOR EACH ROW
+    WHEN (NEW.name IS DISTINCT FROM OLD.name OR NEW.task_group_id IS DISTINCT FROM OLD.task_group_id)
+    EXECUTE FUNCTION bumpExportVersionOnTaskChange();
+
+CREATE TRIGGER bumpExportVersionOnTaskDelete
+    AFTER DELETE ON tasks
+    FOR EACH ROW
+    EXECUTE FUNCTION bumpExportVersionOnTaskChange();
+
+CREATE OR REPLACE FUNCTION bumpExportVersionOnTaskGroupChange()
+RETURNS TRIGGER AS $$
+BEGIN
+UPDATE projects SET export_version = export_version + 1 WHERE id = OLD.project_id;
+IF TG_OP = 'UPDATE' AND NEW.project_id IS DISTINCT FROM OLD.project_id THEN
+    UPDATE projects SET export_version = export_version + 1 WHERE id = NEW.project_id;
+END IF;
+RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER bumpExportVersionOnTaskGroupUpdate
+    AFTER UPDATE OF project_id ON task_groups
+    FOR EACH ROW
+    WHEN (NEW.project_id IS DISTINCT FROM OLD.project_id)
+    EXECUTE FUNCTION bumpExportVersionOnTaskGroupChange();
+
+CREATE TRIGGER bumpExportVersionOnTaskGroupDelete
+    AFTER DELETE ON task_groups
+    FOR EACH ROW
+    EXECUTE FUNCTION bumpExportVersionOnTaskGroupChange();
+
+-- user emails are exported
+CREATE OR REPLACE FUNCTION bumpExportVersionOnUserChange()
+RETURNS TRIGGER AS $$
+BEGIN
+UPDATE projects SET export_version = export_version + 1 WHERE id IN (
+    SELECT tg.project_id FROM task_time_entry e
+    INNER JOIN tasks t ON e.task_id = t.id
+    INNER JOIN task_groups tg ON t.task_group_id = tg.id
+    WHERE e.user_id = NEW.id);
+RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER bumpExportVersionOnUserChange
+    AFTER UPDATE OF email ON users
+    FOR EACH ROW
+    WHEN (NEW.email IS DISTINCT FROM OLD.email)
+    EXECUTE FUNCTION bumpExportVersionOnUserChange();
@@ -0,0 +1,22 @@
+-- notifications of deleted tasks go through the outbox like all others, so they are counted and streamed
+CREATE OR REPLACE FUNCTION createNotificationWhenTaskIsDeleted()
+RETURNS TRIGGER AS $$
+BEGIN
+IF OLD.task_owner_id IS NOT NULL THEN
+    INSERT INTO notification_outbox (recipient_ids, notification_content, status)
+    VALUES (ARRAY[OLD.task_owner_id]::bigint[], 'Task ' || OLD.name || ' was deleted', 'UNREAD');
+END IF;
+RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+-- counts unread notifications the trigger wrote directly so far
+insert into notification_counters(user_id, unread_count)
+select related_to_id, count(*) from notifications
+where status = 'UNREAD' and related_to_id is not null
+group by related_to_id
+on conflict (user_id) do update set unread_count = excluded.unread_count;
+
+update notification_counters c set unread_count = 0
+where unread_count <> 0
+  and not exists (select 1 from notifications n where n.related_to_id = c.user_id and n.status = 'UNREAD');
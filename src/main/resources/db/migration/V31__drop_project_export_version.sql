@@ -0,0 +1,16 @@
+-- export snapshots are computed from the exported rows when an export is requested, writes no longer pay for them
+DROP TRIGGER bumpExportVersionOnTimeEntryChange ON task_time_entry;
+DROP TRIGGER bumpExportVersionOnTaskUpdate ON tasks;
+DROP TRIGGER bumpExportVersionOnTaskDelete ON tasks;
+DROP TRIGGER bumpExportVersionOnTaskGroupUpdate ON task_groups;
+DROP TRIGGER bumpExportVersionOnTaskGroupDelete ON task_groups;
+DROP TRIGGER bumpExportVersionOnUserChange ON users;
+
+DROP FUNCTION bumpExportVersionOnTimeEntryChange();
+DROP FUNCTION bumpExportVersionOnTaskChange();
+DROP FUNCTION bumpExportVersionOnTaskGroupChange();
+DROP FUNCTION bumpExportVersionOnUserChange();
+DROP FUNCTION bumpExportVersionOfTask(bigint);
+DROP FUNCTION bumpExportVersionOfTaskGroup(bigint);
+
+alter table projects drop column export_version;
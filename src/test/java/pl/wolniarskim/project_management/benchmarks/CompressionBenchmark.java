@@ -0,0 +1,111 @@
+package pl.wolniarskim.project_management.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import pl.wolniarskim.project_management.services.CompressionCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compares compression done the old way (new {@link Deflater} or {@link Inflater} per call, never ended) with
+ * {@link CompressionCodec}, both at the same {@code level}. Every operation handles 1 MB, so with the GC profiler
+ * {@code gc.alloc.rate.norm} is the allocation per MB. Run with the test classpath, e.g. from the IDE or
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.wolniarskim.project_management.benchmarks.CompressionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final int PAYLOAD_SIZE = 1024 * 1024;
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    @Param({"1", "6", "9"})
+    public int level;
+
+    private CompressionCodec compressionCodec;
+    private byte[] payload;
+    private byte[] deflated;
+
+    @Setup
+    public void setUp() {
+        compressionCodec = new CompressionCodec(level, 16);
+        StringBuilder csv = new StringBuilder(PAYLOAD_SIZE);
+        for (int i = 0; csv.length() < PAYLOAD_SIZE; i++) {
+            csv.append(i).append(",Task ").append(i % 37).append(",test").append(i % 5).append("@wp.pl,")
+                    .append(i * 15).append(",2023-02-").append(i % 28 + 1).append('\n');
+        }
+        payload = csv.substring(0, PAYLOAD_SIZE).getBytes(StandardCharsets.US_ASCII);
+        deflated = compressWithNewDeflaterPerCall();
+    }
+
+    @TearDown
+    public void tearDown() {
+        compressionCodec.shutdown();
+    }
+
+    @Benchmark
+    public byte[] compressWithNewDeflaterPerCall() {
+        Deflater deflater = new Deflater(level);
+        deflater.setInput(payload);
+        deflater.finish();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(payload.length);
+        byte[] buffer = new byte[4 * 1024];
+        while (!deflater.finished()) {
+            int size = deflater.deflate(buffer);
+            outputStream.write(buffer, 0, size);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] decompressWithNewInflaterPerCall() throws Exception {
+        Inflater inflater = new Inflater();
+        inflater.setInput(deflated);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(deflated.length);
+        byte[] buffer = new byte[4 * 1024];
+        while (!inflater.finished()) {
+            int count = inflater.inflate(buffer);
+            outputStream.write(buffer, 0, count);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] compressWithCodec() {
+        return compressionCodec.deflate(payload);
+    }
+
+    @Benchmark
+    public byte[] decompressWithCodec() throws Exception {
+        return compressionCodec.inflate(deflated, 0, deflated.length);
+    }
+
+    @Benchmark
+    public void compressStreamWithCodec() throws IOException {
+        try (OutputStream compressing = compressionCodec.compressingStream(OutputStream.nullOutputStream())) {
+            for (int offset = 0; offset < payload.length; offset += CHUNK_SIZE) {
+                compressing.write(payload, offset, CHUNK_SIZE);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CompressionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
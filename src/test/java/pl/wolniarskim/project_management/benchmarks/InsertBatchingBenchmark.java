@@ -0,0 +1,154 @@
+package pl.wolniarskim.project_management.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.wolniarskim.project_management.ProjectManagementApplication;
+import pl.wolniarskim.project_management.models.*;
+import pl.wolniarskim.project_management.repositories.ProjectRepository;
+import pl.wolniarskim.project_management.repositories.TaskGroupRepository;
+import pl.wolniarskim.project_management.repositories.TaskRepository;
+import pl.wolniarskim.project_management.repositories.UserRepository;
+import pl.wolniarskim.project_management.services.NotificationDispatcher;
+import pl.wolniarskim.project_management.services.NotificationService;
+import pl.wolniarskim.project_management.services.TaskHistoryService;
+import pl.wolniarskim.project_management.utils.RankUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Insert throughput of bulk task creation, task history entries and notifications with JDBC batching off
+ * ({@code batchSize = 1}, every row is its own round trip as it was with identity ids) and on. Boots the
+ * application against the local {@code task_management} database, another one can be given with
+ * {@code -Dbenchmark.datasource.url}, {@code .username} and {@code .password}. Everything it creates is removed
+ * afterwards. Run with the test classpath, e.g.
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.wolniarskim.project_management.benchmarks.InsertBatchingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBatchingBenchmark {
+
+    private static final int ROWS = 500;
+    private static final int RECIPIENTS = 50;
+    private static final String EMAIL_PREFIX = "insert-batching-benchmark-";
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private TaskRepository taskRepository;
+    private TaskHistoryService taskHistoryService;
+    private NotificationService notificationService;
+    private NotificationDispatcher notificationDispatcher;
+    private Project project;
+    private TaskGroup taskGroup;
+    private List<Task> tasks;
+    private List<User> recipients;
+
+    @Setup
+    public void setUp() {
+        String url = System.getProperty("benchmark.datasource.url", "jdbc:postgresql://localhost:5432/task_management");
+        context = new SpringApplicationBuilder(ProjectManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=" + url + (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=" + (batchSize > 1),
+                        "spring.datasource.username=" + System.getProperty("benchmark.datasource.username", "root"),
+                        "spring.datasource.password=" + System.getProperty("benchmark.datasource.password", "root"),
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "notifications.outbox.poll-interval=3600000",
+                        // test helpers on the classpath need MockMvc, only the beans used here are created
+                        "spring.main.lazy-initialization=true")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        taskRepository = context.getBean(TaskRepository.class);
+        taskHistoryService = context.getBean(TaskHistoryService.class);
+        notificationService = context.getBean(NotificationService.class);
+        notificationDispatcher = context.getBean(NotificationDispatcher.class);
+
+        project = new Project();
+        project.setName("Insert batching");
+        project.setStatus(ProjectStatus.ACTIVE);
+        project = context.getBean(ProjectRepository.class).save(project);
+        taskGroup = new TaskGroup();
+        taskGroup.setName("Insert batching");
+        taskGroup.setProject(project);
+        taskGroup = context.getBean(TaskGroupRepository.class).save(taskGroup);
+        tasks = taskRepository.saveAll(newTasks());
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < RECIPIENTS; i++) {
+            users.add(new User("Insert", "Batching", "batching" + i, EMAIL_PREFIX + i + "@wp.pl", "password", null));
+        }
+        recipients = context.getBean(UserRepository.class).saveAll(users);
+    }
+
+    @TearDown
+    public void tearDown() {
+        // tasks, their history and notifications of the recipients go with them
+        jdbcTemplate.update("delete from projects where id = ?", project.getId());
+        jdbcTemplate.update("delete from users where email like ?", EMAIL_PREFIX + "%");
+        context.close();
+    }
+
+    @Benchmark
+    public List<Task> createTasks() {
+        return transactionTemplate.execute(status -> taskRepository.saveAll(newTasks()));
+    }
+
+    @Benchmark
+    public void recordTaskHistory() {
+        List<TaskHistory> entries = tasks.stream()
+                .map(taskHistoryService::created)
+                .collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> taskHistoryService.saveAll(entries));
+    }
+
+    @Benchmark
+    public int createNotifications() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS / RECIPIENTS; i++) {
+                notificationService.createNotification(recipients, "Insert batching " + i, NotificationStatus.UNREAD);
+            }
+        });
+        return notificationDispatcher.dispatch();
+    }
+
+    private List<Task> newTasks() {
+        List<Task> newTasks = new ArrayList<>(ROWS);
+        String rank = null;
+        for (int i = 0; i < ROWS; i++) {
+            rank = RankUtil.after(rank);
+            Task task = new Task();
+            task.setName("Task " + i);
+            task.setStatus(TaskStatus.TO_DO);
+            task.setPriority(TaskPriority.NORMAL);
+            task.setTaskGroup(taskGroup);
+            task.setRank(rank);
+            newTasks.add(task);
+        }
+        return newTasks;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InsertBatchingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
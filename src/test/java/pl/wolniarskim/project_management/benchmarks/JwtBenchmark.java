@@ -0,0 +1,72 @@
+package pl.wolniarskim.project_management.benchmarks;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import pl.wolniarskim.project_management.services.JwtKeyRing;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares token signing and verification done the old way (new algorithm and verifier per call)
+ * with {@link JwtKeyRing}. Run with the test classpath, e.g. from the IDE or
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=pl.wolniarskim.project_management.benchmarks.JwtBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "secret";
+
+    private JwtKeyRing jwtKeyRing;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtKeyRing = new JwtKeyRing(SECRET, "default", List.of());
+        token = jwtKeyRing.sign(JWT.create()
+                .withSubject("test@wp.pl")
+                .withExpiresAt(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1))));
+    }
+
+    @Benchmark
+    public DecodedJWT verifyWithNewVerifierPerCall() {
+        return JWT.require(Algorithm.HMAC256(SECRET))
+                .build()
+                .verify(token);
+    }
+
+    @Benchmark
+    public DecodedJWT verifyWithKeyRing() {
+        return jwtKeyRing.verify(token);
+    }
+
+    @Benchmark
+    public String signWithNewAlgorithmPerCall() {
+        return JWT.create()
+                .withSubject("test@wp.pl")
+                .sign(Algorithm.HMAC256(SECRET));
+    }
+
+    @Benchmark
+    public String signWithKeyRing() {
+        return jwtKeyRing.sign(JWT.create()
+                .withSubject("test@wp.pl"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package pl.wolniarskim.project_management.models;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wolniarskim.project_management.models.Permission.PermissionEnum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.ALLOW_ALL;
+import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.PROJECT_READ;
+import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.TASK_CREATE;
+
+class PermissionTest {
+
+    @Test
+    void shouldGiveEveryPermissionItsOwnBit() {
+        //when + then
+        long allBits = 0L;
+        for (PermissionEnum permission : PermissionEnum.values()) {
+            Assertions.assertEquals(1, Long.bitCount(permission.mask()), permission.name());
+            Assertions.assertEquals(0, allBits & permission.mask(), permission.name());
+            allBits |= permission.mask();
+        }
+        Assertions.assertTrue(PermissionEnum.values().length <= Long.SIZE);
+    }
+
+    @Test
+    void shouldReadBackPermissionsFoldedIntoMask() {
+        //given
+        Set<PermissionEnum> granted = EnumSet.of(TASK_CREATE, PROJECT_READ, PermissionEnum.TASK_HISTORY_READ);
+        //when
+        long mask = PermissionEnum.toMask(permissions(granted));
+        //then
+        Set<PermissionEnum> readBack = Arrays.stream(PermissionEnum.values())
+                .filter(permission -> (mask & permission.mask()) != 0)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(PermissionEnum.class)));
+        Assertions.assertEquals(granted, readBack);
+    }
+
+    @Test
+    void shouldNotSetBitsOfUnknownPermissions() {
+        //given
+        long knownBits = -1L >>> (Long.SIZE - PermissionEnum.values().length);
+        Set<PermissionEnum> allButAllowAll = EnumSet.complementOf(EnumSet.of(ALLOW_ALL));
+        //when
+        long mask = PermissionEnum.toMask(permissions(allButAllowAll));
+        //then
+        Assertions.assertEquals(0, mask & ~knownBits);
+        Assertions.assertEquals(knownBits & ~ALLOW_ALL.mask(), mask);
+    }
+
+    @Test
+    void shouldSetEveryBitForAllowAll() {
+        //when + then
+        Assertions.assertEquals(-1L, PermissionEnum.toMask(permissions(EnumSet.of(TASK_CREATE, ALLOW_ALL))));
+    }
+
+    @Test
+    void shouldReturnEmptyMaskWithoutPermissions() {
+        //when + then
+        Assertions.assertEquals(0L, PermissionEnum.toMask(null));
+        Assertions.assertEquals(0L, PermissionEnum.toMask(List.of()));
+    }
+
+    private static List<Permission> permissions(Set<PermissionEnum> permissionEnums) {
+        List<Permission> permissions = new ArrayList<>();
+        permissionEnums.forEach(permissionEnum -> permissions.add(new Permission(permissionEnum)));
+        return permissions;
+    }
+}
@@ -0,0 +1,60 @@
+package pl.wolniarskim.project_management.models;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wolniarskim.project_management.models.Permission.PermissionEnum;
+
+import java.util.List;
+
+import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.ALLOW_ALL;
+import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.TASK_CREATE;
+
+class RoleTest {
+
+    @Test
+    void shouldHaveOnlyGrantedPermission() {
+        for (PermissionEnum granted : PermissionEnum.values()) {
+            if (granted == ALLOW_ALL) {
+                continue;
+            }
+            //given
+            Role role = new Role("ROLE", List.of(new Permission(granted)));
+            for (PermissionEnum permission : PermissionEnum.values()) {
+                //when + then
+                Assertions.assertEquals(permission == granted, role.hasPermission(permission), granted + " " + permission);
+            }
+        }
+    }
+
+    @Test
+    void shouldHaveEveryPermissionWithAllowAll() {
+        //given
+        Role role = new Role("ADMIN", List.of(new Permission(ALLOW_ALL)));
+        for (PermissionEnum permission : PermissionEnum.values()) {
+            //when + then
+            Assertions.assertTrue(role.hasPermission(permission), permission.name());
+        }
+    }
+
+    @Test
+    void shouldHaveNoPermissionWithoutPermissions() {
+        //given
+        Role role = new Role();
+        for (PermissionEnum permission : PermissionEnum.values()) {
+            //when + then
+            Assertions.assertFalse(role.hasPermission(permission), permission.name());
+        }
+    }
+
+    @Test
+    void shouldCheckNewPermissionsAfterTheyWereChanged() {
+        //given
+        Role role = new Role("ROLE", List.of(new Permission(TASK_CREATE)));
+        Assertions.assertTrue(role.hasPermission(TASK_CREATE));
+        //when
+        role.setPermissions(List.of(new Permission(PermissionEnum.TASK_DELETE)));
+        //then
+        Assertions.assertFalse(role.hasPermission(TASK_CREATE));
+        Assertions.assertTrue(role.hasPermission(PermissionEnum.TASK_DELETE));
+    }
+}
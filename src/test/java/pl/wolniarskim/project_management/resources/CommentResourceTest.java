@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
@@ -22,6 +23,7 @@ import pl.wolniarskim.project_management.models.ProjectStatus;
 import pl.wolniarskim.project_management.repositories.CommentRepository;
 import pl.wolniarskim.project_management.repositories.NotificationRepository;
 import pl.wolniarskim.project_management.repositories.ProjectRepository;
+import pl.wolniarskim.project_management.services.NotificationDispatcher;
 import pl.wolniarskim.project_management.util.AuthUtil;
 
 import java.time.LocalDate;
@@ -50,6 +52,8 @@ class CommentResourceTest {
     NotificationRepository notificationRepository;
     @Autowired
     ProjectRepository projectRepository;
+    @Autowired
+    NotificationDispatcher notificationDispatcher;
 
     @Test
     void shouldReturn404WhenIsNotAuthorize() throws Exception {
@@ -354,11 +358,173 @@ class CommentResourceTest {
                         .header("Authorization", "Bearer " + authToken))
                 .andExpect(MockMvcResultMatchers.status().is(200));
 
+        notificationDispatcher.dispatch();
+
         //then
         Notification notification = notificationRepository.findAll().stream().filter(n -> n.getNotificationContent().equals("You got mark in task comment -> 1")).collect(Collectors.toList()).get(0);
         Assertions.assertEquals("test2@wp.pl", notification.getRelatedTo().getEmail());
     }
 
+    @Test
+    void shouldDeliverMentionNotificationThroughOutbox() throws Exception {
+        // given
+        String authToken = authUtil.getAuthToken("test1@wp.pl");
+        TaskReadModel task = createTask(authToken);
+        UserWriteModel userWriteModel = new UserWriteModel();
+        userWriteModel.setFirstName("Test1");
+        userWriteModel.setLastName("Test2");
+        userWriteModel.setEmail("test2@wp.pl");
+        userWriteModel.setRoleId(1);
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/organizations/users")
+                        .header("Authorization", "Bearer " + authToken)
+                        .content(objectMapper.writeValueAsString(userWriteModel))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+        notificationDispatcher.dispatch();
+
+        CommentWriteModel commentWriteModel = new CommentWriteModel();
+        commentWriteModel.setTaskId(task.getId());
+        commentWriteModel.setComment("@@@@test2@wp.pl@@@@");
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/comments/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(commentWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+        NotificationOutboxStats statsBefore = getOutboxStats(authToken);
+        int dispatched = notificationDispatcher.dispatch();
+        NotificationOutboxStats statsAfter = getOutboxStats(authToken);
+
+        //then
+        Assertions.assertEquals(1, statsBefore.getPending());
+        Assertions.assertEquals(1, dispatched);
+        Assertions.assertEquals(0, statsAfter.getPending());
+        List<String> notifiedUsers = notificationRepository.findAll().stream()
+                .filter(n -> n.getNotificationContent().equals("You got mark in task comment -> " + task.getId()))
+                .map(n -> n.getRelatedTo().getEmail())
+                .sorted()
+                .collect(Collectors.toList());
+        Assertions.assertEquals(List.of("test2@wp.pl"), notifiedUsers);
+    }
+
+    @Test
+    void shouldNotifyOnlyNewlyMentionedUsersWhenCommentIsEdited() throws Exception {
+        // given
+        String authToken = authUtil.getAuthToken("test1@wp.pl");
+        TaskReadModel task = createTask(authToken);
+        for (String email : List.of("test2@wp.pl", "test3@wp.pl")) {
+            UserWriteModel userWriteModel = new UserWriteModel();
+            userWriteModel.setFirstName("Test1");
+            userWriteModel.setLastName("Test2");
+            userWriteModel.setEmail(email);
+            userWriteModel.setRoleId(1);
+            mockMvc.perform(MockMvcRequestBuilders
+                            .post("/api/organizations/users")
+                            .header("Authorization", "Bearer " + authToken)
+                            .content(objectMapper.writeValueAsString(userWriteModel))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(MockMvcResultMatchers.status().is(200));
+        }
+
+        CommentWriteModel commentWriteModel = new CommentWriteModel();
+        commentWriteModel.setTaskId(task.getId());
+        commentWriteModel.setComment("@@@@test2@wp.pl@@@@ @@@@unknown@wp.pl@@@@");
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/comments/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(commentWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        CommentReadModel comment = objectMapper.readValue(result.getResponse().getContentAsString(), CommentReadModel.class);
+
+        //when
+        commentWriteModel.setComment("@@@@test2@wp.pl@@@@ and @@@@test3@wp.pl@@@@");
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/comments/update/" + comment.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(commentWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+        notificationDispatcher.dispatch();
+
+        //then
+        List<String> notifiedUsers = notificationRepository.findAll().stream()
+                .filter(n -> n.getNotificationContent().equals("You got mark in task comment -> " + task.getId()))
+                .map(n -> n.getRelatedTo().getEmail())
+                .sorted()
+                .collect(Collectors.toList());
+        Assertions.assertEquals(List.of("test2@wp.pl", "test3@wp.pl"), notifiedUsers);
+    }
+
+    @Test
+    void shouldReturnCommentsOfTaskPageByPageWithAuthorImageHash() throws Exception {
+        // given
+        String authToken = authUtil.getAuthToken("test1@wp.pl");
+        TaskReadModel task = createTask(authToken);
+        byte[] image = new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 1, 2, 3};
+        mockMvc.perform(MockMvcRequestBuilders
+                        .multipart("/api/profile/profile-image")
+                        .file(new MockMultipartFile("image", "avatar.png", "image/png", image))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+        for (String content : List.of("First", "Second", "Third")) {
+            CommentWriteModel commentWriteModel = new CommentWriteModel();
+            commentWriteModel.setTaskId(task.getId());
+            commentWriteModel.setComment(content);
+            mockMvc.perform(MockMvcRequestBuilders
+                            .post("/api/comments/create")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(commentWriteModel))
+                            .header("Authorization", "Bearer " + authToken))
+                    .andExpect(MockMvcResultMatchers.status().is(200));
+        }
+
+        //when
+        MvcResult firstResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/comments/" + task.getId())
+                        .param("size", "2")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        CommentPage firstPage = objectMapper.readValue(firstResult.getResponse().getContentAsString(), CommentPage.class);
+        MvcResult secondResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/comments/" + task.getId())
+                        .param("size", "2")
+                        .param("cursor", String.valueOf(firstPage.getNextCursor()))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        CommentPage secondPage = objectMapper.readValue(secondResult.getResponse().getContentAsString(), CommentPage.class);
+
+        //then
+        Assertions.assertEquals(List.of("First", "Second"), firstPage.getComments().stream().map(CommentReadModel::getContent).collect(Collectors.toList()));
+        Assertions.assertEquals(List.of("Third"), secondPage.getComments().stream().map(CommentReadModel::getContent).collect(Collectors.toList()));
+        Assertions.assertNull(secondPage.getNextCursor());
+        UserReadModel author = firstPage.getComments().get(0).getCreatedBy();
+        Assertions.assertEquals("test1@wp.pl", author.getEmail());
+        Assertions.assertNotNull(author.getProfileImageHash());
+
+        MvcResult imageResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/profile/images/" + author.getProfileImageHash())
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        Assertions.assertArrayEquals(image, imageResult.getResponse().getContentAsByteArray());
+        Assertions.assertEquals("image/png", imageResult.getResponse().getContentType());
+        Assertions.assertEquals("\"" + author.getProfileImageHash() + "\"", imageResult.getResponse().getHeader("ETag"));
+        Assertions.assertTrue(imageResult.getResponse().getHeader("Cache-Control").contains("immutable"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/profile/images/" + author.getProfileImageHash())
+                        .header("If-None-Match", imageResult.getResponse().getHeader("ETag"))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(304));
+    }
+
     @Test
     void shouldNotCreateNotificationForOtherUserInProjectIfUserIsNotPartOfProjectWhenUserIsMentionedInComment() throws Exception {
         // given
@@ -379,12 +545,22 @@ class CommentResourceTest {
                         .header("Authorization", "Bearer " + authToken))
                 .andExpect(MockMvcResultMatchers.status().is(403))
                 .andReturn();
+        notificationDispatcher.dispatch();
 
         //then
         List<Notification> collect = notificationRepository.findAll().stream().filter(n -> n.getNotificationContent().equals("You got mark in task comment -> 1")).collect(Collectors.toList());
         Assertions.assertEquals(0, collect.size());
     }
 
+    private NotificationOutboxStats getOutboxStats(String authToken) throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/notifications/outbox")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), NotificationOutboxStats.class);
+    }
+
     private TaskReadModel createTask(String authToken) throws Exception {
         ProjectWriteModel projectWriteModel = new ProjectWriteModel();
         projectWriteModel.setName("Test 2");
@@ -0,0 +1,190 @@
+package pl.wolniarskim.project_management.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import pl.wolniarskim.project_management.models.DTO.NotificationFilter;
+import pl.wolniarskim.project_management.models.DTO.NotificationPage;
+import pl.wolniarskim.project_management.models.DTO.NotificationReadModel;
+import pl.wolniarskim.project_management.models.NotificationStatus;
+import pl.wolniarskim.project_management.models.User;
+import pl.wolniarskim.project_management.repositories.UserRepository;
+import pl.wolniarskim.project_management.services.NotificationDispatcher;
+import pl.wolniarskim.project_management.services.NotificationService;
+import pl.wolniarskim.project_management.util.AuthUtil;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureEmbeddedDatabase(type = AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES)
+class NotificationResourceTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    AuthUtil authUtil;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    NotificationService notificationService;
+    @Autowired
+    NotificationDispatcher notificationDispatcher;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldReturnNotificationsPageByPageNewestFirst() throws Exception {
+        //given
+        String authToken = authUtil.getAuthToken("test1@wp.pl");
+        createNotifications("test1@wp.pl", 3);
+
+        //when
+        NotificationPage firstPage = getNotifications(authToken, null, null);
+        NotificationPage secondPage = getNotifications(authToken, firstPage.getNextCursor(), null);
+
+        //then
+        Assertions.assertEquals(List.of("Notification 3", "Notification 2"), contents(firstPage));
+        Assertions.assertEquals(List.of("Notification 1"), contents(secondPage));
+        Assertions.assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void shouldMarkGivenNotificationsAsReadAndUpdateUnreadCount() throws Exception {
+        //given
+        String authToken = authUtil.getAuthToken("test1@wp.pl");
+        createNotifications("test1@wp.pl", 3);
+        long unreadBefore = getUnreadCount(authToken);
+        NotificationPage page = getNotifications(authToken, null, null);
+
+        //when
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/notifications/read")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(page.getNotifications().get(0).getId())))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+
+        //then
+        Assertions.assertEquals("1", result.getResponse().getContentAsString());
+        Assertions.assertEquals(unreadBefore - 1, getUnreadCount(authToken));
+        NotificationPage unread = getNotifications(authToken, null, NotificationStatus.UNREAD);
+        Assertions.assertFalse(contents(unread).contains("Notification 3"));
+        Assertions.assertTrue(contents(unread).contains("Notification 2"));
+    }
+
+    @Test
+    void shouldMarkAllNotificationsAsRead() throws Exception {
+        //given
+        String authToken = authUtil.getAuthToken("test1@wp.pl");
+        authUtil.getAuthToken("test2@wp.pl");
+        createNotifications("test1@wp.pl", 3);
+        createNotifications("test2@wp.pl", 2);
+        String otherUserToken = authUtil.getAuthToken("test2@wp.pl");
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/notifications/read-all")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+
+        //then
+        Assertions.assertEquals(0, getUnreadCount(authToken));
+        Assertions.assertEquals(0, getNotifications(authToken, null, NotificationStatus.UNREAD).getNotifications().size());
+        Assertions.assertEquals(2, getUnreadCount(otherUserToken));
+    }
+
+    @Test
+    void shouldNotMarkNotificationOfOtherUserAsRead() throws Exception {
+        //given
+        authUtil.getAuthToken("test1@wp.pl");
+        String otherUserToken = authUtil.getAuthToken("test2@wp.pl");
+        createNotifications("test1@wp.pl", 1);
+        User user = userRepository.findByEmail("test1@wp.pl").orElseThrow();
+        NotificationReadModel notification = notificationService.getNotifications(user, new NotificationFilter())
+                .getNotifications().get(0);
+
+        //when + then
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/notifications/" + notification.getId())
+                        .header("Authorization", "Bearer " + otherUserToken))
+                .andExpect(MockMvcResultMatchers.status().is(403));
+    }
+
+    @Test
+    void shouldRebuildUnreadCountsWhichDrifted() throws Exception {
+        //given
+        String authToken = authUtil.getAuthToken("test1@wp.pl");
+        createNotifications("test1@wp.pl", 2);
+        User user = userRepository.findByEmail("test1@wp.pl").orElseThrow();
+        jdbcTemplate.update("insert into notifications(status, notification_content, related_to_id) values ('UNREAD', 'Uncounted', ?)", user.getId());
+
+        //when
+        int drifted = notificationService.reconcileUnreadCounts();
+
+        //then
+        Assertions.assertEquals(1, drifted);
+        Assertions.assertEquals(3, getUnreadCount(authToken));
+        Assertions.assertEquals(0, notificationService.reconcileUnreadCounts());
+    }
+
+    private void createNotifications(String email, int count) {
+        User user = userRepository.findByEmail(email).orElseThrow();
+        for (int i = 1; i <= count; i++) {
+            notificationService.createNotification(user, "Notification " + i, NotificationStatus.UNREAD);
+            notificationDispatcher.dispatch();
+        }
+    }
+
+    private NotificationPage getNotifications(String authToken, Long cursor, NotificationStatus status) throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get("/api/notifications")
+                .param("size", "2")
+                .header("Authorization", "Bearer " + authToken);
+        if (cursor != null) {
+            request.param("cursor", String.valueOf(cursor));
+        }
+        if (status != null) {
+            request.param("status", status.name());
+        }
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), NotificationPage.class);
+    }
+
+    private long getUnreadCount(String authToken) throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/notifications/unread-count")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        return Long.parseLong(result.getResponse().getContentAsString());
+    }
+
+    private List<String> contents(NotificationPage page) {
+        return page.getNotifications().stream()
+                .map(NotificationReadModel::getNotificationContent)
+                .collect(Collectors.toList());
+    }
+}
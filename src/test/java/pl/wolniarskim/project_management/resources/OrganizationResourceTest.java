@@ -293,6 +293,35 @@ class OrganizationResourceTest {
         Assertions.assertEquals(expected, organizationRepository.findAll().get(0).getName());
     }
 
+    @Test
+    void shouldShowNewOrganizationNameToUserAlreadyLoggedIn() throws Exception {
+        //given
+        String expected = "test123";
+        OrganizationWriteModel organizationWriteModel = new OrganizationWriteModel();
+        organizationWriteModel.setName(expected);
+
+        String authToken = authUtil.getUserWithRole("test@wp.pl", List.of(ORGANIZATION_UPDATE));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/profile/profile-details")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/organizations/" + organizationRepository.findAll().get(0).getOrgId())
+                        .header("Authorization", "Bearer " + authToken)
+                        .content(objectMapper.writeValueAsString(organizationWriteModel))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/profile/profile-details")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.organization.name").value(expected));
+    }
+
     @Test
     void shouldNotUpdateOrganizationIfUserHasNoPermission() throws Exception {
         //given
@@ -1,7 +1,10 @@
 package pl.wolniarskim.project_management.resources;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
@@ -13,14 +16,17 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import pl.wolniarskim.project_management.models.*;
 import pl.wolniarskim.project_management.models.DTO.*;
 import pl.wolniarskim.project_management.repositories.*;
 import pl.wolniarskim.project_management.services.ProjectService;
+import pl.wolniarskim.project_management.services.ProjectStatisticsService;
 import pl.wolniarskim.project_management.util.AuthUtil;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -43,6 +49,8 @@ class ProjectResourceTest {
     @Autowired
     ProjectService projectService;
     @Autowired
+    ProjectStatisticsService projectStatisticsService;
+    @Autowired
     UserRepository userRepository;
     @Autowired
     ProjectRepository projectRepository;
@@ -54,6 +62,8 @@ class ProjectResourceTest {
     TaskRepository taskRepository;
     @Autowired
     ResetPasswordTokenRepository resetPasswordTokenRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
 
     @Test
     void shouldReturn404WhenIsNotAuthorize() throws Exception {
@@ -99,9 +109,48 @@ class ProjectResourceTest {
                         .header("Authorization", "Bearer " + authToken))
                 .andExpect(MockMvcResultMatchers.status().is(200))
                 .andReturn();
-        SimpleProjectReadModel[] readModels = objectMapper.readValue(authorization.getResponse().getContentAsString(), SimpleProjectReadModel[].class);
+        ProjectPage page = objectMapper.readValue(authorization.getResponse().getContentAsString(), ProjectPage.class);
         // then
-        Assertions.assertEquals(2, readModels.length);
+        Assertions.assertEquals(2, page.getProjects().size());
+    }
+
+    @Test
+    void shouldReturnProjectsPageByPageFilteredByStatus() throws Exception {
+        // given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(PROJECT_CREATE, PROJECT_READ));
+        for (String name : List.of("First", "Second", "Third")) {
+            ProjectWriteModel projectWriteModel = new ProjectWriteModel();
+            projectWriteModel.setName(name);
+            projectWriteModel.setStatus(ProjectStatus.ACTIVE);
+            projectWriteModel.setStartTime(LocalDate.now());
+            projectWriteModel.setEndTime(LocalDate.now());
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                            .post("/api/projects/create")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(projectWriteModel))
+                            .header("Authorization", "Bearer " + authToken))
+                    .andExpect(MockMvcResultMatchers.status().is(200))
+                    .andReturn();
+            if (name.equals("Second")) {
+                Project project = projectRepository.findById(objectMapper.readValue(result.getResponse().getContentAsString(), SimpleProjectReadModel.class).getId()).orElseThrow();
+                project.setStatus(ProjectStatus.ARCHIVED);
+                projectRepository.save(project);
+            }
+        }
+
+        // when
+        ProjectPage firstPage = getProjectPage(authToken, null);
+        ProjectPage secondPage = getProjectPage(authToken, firstPage.getNextCursor());
+
+        // then
+        Assertions.assertEquals(1, firstPage.getProjects().size());
+        Assertions.assertEquals("Third", firstPage.getProjects().get(0).getName());
+        Assertions.assertEquals("test1@wp.pl", firstPage.getProjects().get(0).getOwner().getEmail());
+        Assertions.assertTrue(firstPage.getProjects().get(0).getOwner().getRole().getPermissions().stream()
+                .anyMatch(permission -> permission.getName() == PROJECT_READ));
+        Assertions.assertEquals(1, secondPage.getProjects().size());
+        Assertions.assertEquals("First", secondPage.getProjects().get(0).getName());
+        Assertions.assertNull(secondPage.getNextCursor());
     }
 
     @Test
@@ -162,9 +211,9 @@ class ProjectResourceTest {
                         .header("Authorization", "Bearer " + tokensResponse.getAccessToken()))
                 .andExpect(MockMvcResultMatchers.status().is(200))
                 .andReturn();
-        SimpleProjectReadModel[] readModels = objectMapper.readValue(authorization.getResponse().getContentAsString(), SimpleProjectReadModel[].class);
+        ProjectPage page = objectMapper.readValue(authorization.getResponse().getContentAsString(), ProjectPage.class);
         // then
-        Assertions.assertEquals(1, readModels.length);
+        Assertions.assertEquals(1, page.getProjects().size());
     }
 
     @Test
@@ -492,6 +541,56 @@ class ProjectResourceTest {
         Assertions.assertEquals(2, projectReadModel.getTaskGroups().stream().findFirst().get().getTasks().size());
     }
 
+    @Test
+    void shouldReturnProjectBoardWithTwoQueries() throws Exception {
+        //given
+        String firstAuthToken = authUtil.getUserWithRole("test1@wp.pl", List.of(PROJECT_READ, PROJECT_CREATE, TASK_GROUP_CREATE, TASK_CREATE));
+        ProjectReadModel fakeProject = createFakeProject(firstAuthToken);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/projects/" + fakeProject.getId() + "/board")
+                        .header("Authorization", "Bearer " + firstAuthToken))
+                .andExpect(MockMvcResultMatchers.status().is(200)).andReturn();
+
+        //then
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+        ProjectReadModel projectReadModel = objectMapper.readValue(result.getResponse().getContentAsString(), ProjectReadModel.class);
+        Assertions.assertEquals("test1@wp.pl", projectReadModel.getOwner().getEmail());
+        Assertions.assertEquals(0, projectReadModel.getUsers().size());
+        Assertions.assertEquals(1, projectReadModel.getTaskGroups().size());
+        // read models keep tasks in a set, the order is checked on the response itself
+        List<String> tasks = JsonPath.read(result.getResponse().getContentAsString(), "$.taskGroups[0].tasks[*].name");
+        Assertions.assertEquals(List.of("Task 1", "Task 2"), tasks);
+    }
+
+    @Test
+    void shouldReturnProjectMembersWithoutTaskGroups() throws Exception {
+        //given
+        String firstAuthToken = authUtil.getUserWithRole("test1@wp.pl", List.of(PROJECT_READ, PROJECT_CREATE, TASK_GROUP_CREATE, TASK_CREATE));
+        ProjectReadModel fakeProject = createFakeProject(firstAuthToken);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/projects/" + fakeProject.getId())
+                        .param("plan", ProjectFetchPlan.MEMBERS.name())
+                        .header("Authorization", "Bearer " + firstAuthToken))
+                .andExpect(MockMvcResultMatchers.status().is(200)).andReturn();
+
+        //then
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+        ProjectReadModel projectReadModel = objectMapper.readValue(result.getResponse().getContentAsString(), ProjectReadModel.class);
+        Assertions.assertEquals(0, projectReadModel.getTaskGroups().size());
+        UserReadModel member = projectReadModel.getUsers().iterator().next();
+        Assertions.assertEquals("test1@wp.pl", member.getEmail());
+        Assertions.assertTrue(member.getRole().getPermissions().stream()
+                .anyMatch(permission -> permission.getName() == PROJECT_READ));
+    }
+
     @Test
     void shouldNotReturnProjectWithGivenIdWhenUserHasNoPermission() throws Exception {
         String firstAuthToken = authUtil.getUserWithRole("test1@wp.pl", List.of(PROJECT_CREATE, TASK_GROUP_CREATE, TASK_CREATE));
@@ -743,6 +842,93 @@ class ProjectResourceTest {
         Assertions.assertEquals(1, projectMetaData.getTaskByPriority().getNumberOfTasksWithUrgentPriority());
     }
 
+    @Test
+    void shouldUpdateOverviewOfProjectWhenTasksChange() throws Exception {
+        //given
+        String firstAuthToken = authUtil.getAuthToken("test1@wp.pl");
+
+        ProjectReadModel fakeProject = createFakeProject(firstAuthToken);
+        List<Task> tasks = taskRepository.findAll();
+        Task highPriorityTask = tasks.stream().filter(task -> task.getPriority() == TaskPriority.HIGH).findFirst().orElseThrow();
+        Task urgentPriorityTask = tasks.stream().filter(task -> task.getPriority() == TaskPriority.URGENT).findFirst().orElseThrow();
+
+        TaskWriteModel taskWriteModel = new TaskWriteModel();
+        taskWriteModel.setName("Task 1");
+        taskWriteModel.setPriority(TaskPriority.LOW);
+        taskWriteModel.setStatus(TaskStatus.DONE);
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/tasks/update/" + highPriorityTask.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskWriteModel))
+                        .header("Authorization", "Bearer " + firstAuthToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .delete("/api/tasks/delete/" + urgentPriorityTask.getId())
+                        .header("Authorization", "Bearer " + firstAuthToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+
+        MvcResult authorization = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/projects/overview/" + fakeProject.getId())
+                        .header("Authorization", "Bearer " + firstAuthToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+
+        ProjectMetaData projectMetaData = objectMapper.readValue(authorization.getResponse().getContentAsString(), ProjectMetaData.class);
+
+        //then
+        Assertions.assertEquals(1, projectMetaData.getNumberOfAllTasks());
+        Assertions.assertEquals(1, projectMetaData.getNumberOfCompletedTasks());
+        Assertions.assertEquals(1, projectMetaData.getTaskByPriority().getNumberOfTasksWithLowPriority());
+        Assertions.assertEquals(0, projectMetaData.getTaskByPriority().getNumberOfTasksWithHighPriority());
+        Assertions.assertEquals(0, projectMetaData.getTaskByPriority().getNumberOfTasksWithUrgentPriority());
+        Assertions.assertEquals(0, projectStatisticsService.reconcile());
+    }
+
+    @Test
+    void shouldReturnTimesheetOverviewOfProject() throws Exception {
+        //given
+        String firstAuthToken = authUtil.getAuthToken("test1@wp.pl");
+
+        ProjectReadModel fakeProject = createFakeProject(firstAuthToken);
+        Task task = taskRepository.findAll().get(0);
+        addTimeEntry(firstAuthToken, task.getId(), 3.5, true);
+        addTimeEntry(firstAuthToken, task.getId(), 1.5, true);
+        addTimeEntry(firstAuthToken, task.getId(), 2, false);
+
+        //when
+        MvcResult authorization = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/projects/overview/" + fakeProject.getId())
+                        .header("Authorization", "Bearer " + firstAuthToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+
+        ProjectMetaData projectMetaData = objectMapper.readValue(authorization.getResponse().getContentAsString(), ProjectMetaData.class);
+
+        //then
+        Assertions.assertEquals(2, projectMetaData.getNumberOfAllTasks());
+        Assertions.assertEquals(5, projectMetaData.getTimesheetMetadata().getNumberOfAllBillableHours());
+        Assertions.assertEquals(2, projectMetaData.getTimesheetMetadata().getNumberOfAllNonBillableHours());
+        Assertions.assertEquals(5, projectMetaData.getTimesheetMetadata().getNumberOfBillableHoursInCurrentMonth());
+        Assertions.assertEquals(2, projectMetaData.getTimesheetMetadata().getNumberOfNonBillableHoursInCurrentMonth());
+    }
+
+    @Test
+    void shouldNotReturnOverviewOfProjectWhenUserIsFromAnotherOrganization() throws Exception {
+        //given
+        String firstAuthToken = authUtil.getAuthToken("test1@wp.pl");
+        String secondAuthToken = authUtil.getAuthToken("test2@wp.pl");
+
+        ProjectReadModel fakeProject = createFakeProject(firstAuthToken);
+
+        //when + then
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/projects/overview/" + fakeProject.getId())
+                        .header("Authorization", "Bearer " + secondAuthToken))
+                .andExpect(MockMvcResultMatchers.status().is(403));
+    }
+
 
     void createFakeProjects() throws Exception {
         String firstAuthToken = authUtil.getUserWithRole("test101@wp.pl", List.of(PROJECT_CREATE));
@@ -851,6 +1037,20 @@ class ProjectResourceTest {
         return projectReadModel;
     }
 
+    private void addTimeEntry(String token, long taskId, double hoursSpent, boolean billable) throws Exception {
+        TaskTimeEntryWriteModel taskTimeEntryWriteModel = new TaskTimeEntryWriteModel();
+        taskTimeEntryWriteModel.setDescription("Description");
+        taskTimeEntryWriteModel.setHoursSpent(hoursSpent);
+        taskTimeEntryWriteModel.setBillable(billable);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/timesheet/" + taskId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskTimeEntryWriteModel))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+    }
+
     private void addUserToOrganization(String token, String email) throws Exception {
         UserWriteModel userWriteModel = new UserWriteModel();
         userWriteModel.setFirstName("Test1");
@@ -884,4 +1084,19 @@ class ProjectResourceTest {
 
         return objectMapper.readValue(result.getResponse().getContentAsString(), ProjectReadModel.class);
     }
+
+    private ProjectPage getProjectPage(String authToken, Long cursor) throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get("/api/projects")
+                .param("size", "1")
+                .param("status", ProjectStatus.ACTIVE.name())
+                .header("Authorization", "Bearer " + authToken);
+        if (cursor != null) {
+            request.param("cursor", String.valueOf(cursor));
+        }
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), ProjectPage.class);
+    }
 }
@@ -9,21 +9,37 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import pl.wolniarskim.project_management.exceptions.NoSuchEntityException;
 import pl.wolniarskim.project_management.models.*;
 import pl.wolniarskim.project_management.models.DTO.*;
 import pl.wolniarskim.project_management.repositories.*;
+import pl.wolniarskim.project_management.services.NotificationDispatcher;
 import pl.wolniarskim.project_management.services.NotificationService;
+import pl.wolniarskim.project_management.services.TaskHistoryService;
+import pl.wolniarskim.project_management.services.TaskRankService;
 import pl.wolniarskim.project_management.util.AuthUtil;
 
 import javax.transaction.Transactional;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
 
 import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.*;
 
@@ -50,9 +66,19 @@ class TaskResourceTest {
     @Autowired
     TaskTimeEntryRepository taskTimeEntryRepository;
     @Autowired
+    ProjectRepository projectRepository;
+    @Autowired
     ResetPasswordTokenRepository resetPasswordTokenRepository;
     @Autowired
     NotificationService notificationService;
+    @Autowired
+    NotificationDispatcher notificationDispatcher;
+    @Autowired
+    TaskHistoryService taskHistoryService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TaskRankService taskRankService;
 
     @Test
     void shouldReturn404WhenIsNotAuthorize() throws Exception {
@@ -154,6 +180,27 @@ class TaskResourceTest {
         Assertions.assertEquals(0, taskRepository.findAll().size());
     }
 
+    @Test
+    void shouldCountNotificationOfDeletedTaskAsUnread() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_DELETE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        User owner = userRepository.findByEmail("test1@wp.pl").get();
+        TaskReadModel task = createTasks(authToken, List.of(newBulkTask(createTaskGroup(authToken), "Task 1", owner))).get(0);
+        long notificationsBefore = notificationService.getUnreadCount(owner);
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders
+                        .delete("/api/tasks/delete/" + task.getId())
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+        notificationDispatcher.dispatch();
+
+        //then
+        Assertions.assertEquals(notificationsBefore + 1, notificationService.getUnreadCount(owner));
+        Assertions.assertEquals(notificationsBefore + 1, jdbcTemplate.queryForObject(
+                "select count(*) from notifications where related_to_id = ? and status = 'UNREAD'", Long.class, owner.getId()));
+    }
+
     @Test
     void shouldNotDeleteTaskWhenUserHasNoPermission() throws Exception {
         //given
@@ -334,6 +381,480 @@ class TaskResourceTest {
         Assertions.assertEquals("Task 1", taskRepository.findAll().get(0).getName());
     }
 
+    @Test
+    void shouldCreateTasksOfManyTaskGroupsInOneRequest() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskGroupReadModel firstTaskGroup = createTaskGroup(authToken);
+        TaskGroupReadModel secondTaskGroup = createTaskGroup(authToken);
+
+        //when
+        List<TaskReadModel> tasks = createTasks(authToken, List.of(
+                newBulkTask(firstTaskGroup, "Task 1", null),
+                newBulkTask(firstTaskGroup, "Task 2", null),
+                newBulkTask(secondTaskGroup, "Task 3", null)));
+
+        //then
+        Assertions.assertEquals(List.of("Task 1", "Task 2", "Task 3"), tasks.stream().map(TaskReadModel::getName).collect(Collectors.toList()));
+        Assertions.assertEquals(3, taskRepository.findAll().size());
+        Assertions.assertEquals(3, jdbcTemplate.queryForObject("select count(*) from task_histories", Long.class));
+        Assertions.assertEquals(3, jdbcTemplate.queryForObject("select sum(task_count) from project_task_statistics", Long.class));
+    }
+
+    @Test
+    void shouldUpdateTasksInOneRequestAndNotifyOwnerOnce() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskGroupReadModel firstTaskGroup = createTaskGroup(authToken);
+        TaskGroupReadModel secondTaskGroup = createTaskGroup(authToken);
+        User owner = userRepository.findByEmail("test1@wp.pl").get();
+        List<TaskReadModel> tasks = createTasks(authToken, List.of(
+                newBulkTask(firstTaskGroup, "Task 1", owner),
+                newBulkTask(firstTaskGroup, "Task 2", owner)));
+        long notificationsBefore = notificationService.getUnreadCount(owner);
+
+        List<TaskBulkUpdateWriteModel> updates = new ArrayList<>();
+        for (TaskReadModel task : tasks) {
+            TaskBulkUpdateWriteModel update = new TaskBulkUpdateWriteModel();
+            update.setTaskId(task.getId());
+            update.setStatus(TaskStatus.DONE);
+            update.setTaskGroupId(secondTaskGroup.getId());
+            updates.add(update);
+        }
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/tasks/bulk/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updates))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+        notificationDispatcher.dispatch();
+
+        //then
+        for (Task task : taskRepository.findAll()) {
+            Assertions.assertEquals(TaskStatus.DONE, task.getStatus());
+            Assertions.assertEquals(TaskPriority.HIGH, task.getPriority());
+        }
+        Assertions.assertEquals(2, jdbcTemplate.queryForObject("select count(*) from tasks where task_group_id = ?", Long.class, secondTaskGroup.getId()));
+        Assertions.assertEquals(2, jdbcTemplate.queryForObject("select sum(task_count) from project_task_statistics where status = 'DONE'", Long.class));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("select sum(task_count) from project_task_statistics where status = 'TO_DO'", Long.class));
+        Assertions.assertEquals(notificationsBefore + 1, notificationService.getUnreadCount(owner));
+    }
+
+    @Test
+    void shouldNotUpdateTasksWhenOneOfThemIsFromAnotherOrganization() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        String secondToken = authUtil.getUserWithRole("test2@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskReadModel ownTask = createTasks(authToken, List.of(newBulkTask(createTaskGroup(authToken), "Task 1", null))).get(0);
+        TaskReadModel otherTask = createTasks(secondToken, List.of(newBulkTask(createTaskGroup(secondToken), "Task 2", null))).get(0);
+
+        List<TaskBulkUpdateWriteModel> updates = new ArrayList<>();
+        for (TaskReadModel task : List.of(ownTask, otherTask)) {
+            TaskBulkUpdateWriteModel update = new TaskBulkUpdateWriteModel();
+            update.setTaskId(task.getId());
+            update.setStatus(TaskStatus.DONE);
+            updates.add(update);
+        }
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/tasks/bulk/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updates))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(403));
+
+        //then
+        for (Task task : taskRepository.findAll()) {
+            Assertions.assertEquals(TaskStatus.TO_DO, task.getStatus());
+        }
+    }
+
+    @Test
+    void shouldDeleteTasksInOneRequest() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_DELETE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskGroupReadModel taskGroup = createTaskGroup(authToken);
+        List<TaskReadModel> tasks = createTasks(authToken, List.of(
+                newBulkTask(taskGroup, "Task 1", null),
+                newBulkTask(taskGroup, "Task 2", null),
+                newBulkTask(taskGroup, "Task 3", null)));
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(tasks.get(0).getId(), tasks.get(2).getId())))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+
+        //then
+        List<Task> left = taskRepository.findAll();
+        Assertions.assertEquals(1, left.size());
+        Assertions.assertEquals("Task 2", left.get(0).getName());
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("select sum(task_count) from project_task_statistics", Long.class));
+    }
+
+    @Test
+    void shouldRejectBulkRequestLargerThanLimit() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_DELETE));
+        List<Long> taskIds = LongStream.rangeClosed(1, 1001).boxed().collect(Collectors.toList());
+
+        //when + then
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskIds))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(400));
+    }
+
+    @Test
+    void shouldAcceptEmptyBulkRequests() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_DELETE));
+
+        //when + then
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/bulk/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.content().json("[]"));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/tasks/bulk/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.content().json("[]"));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+    }
+
+    @Test
+    void shouldPatchOnlyGivenFieldsAndKeepWatchers() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskBulkCreateWriteModel taskWriteModel = newBulkTask(createTaskGroup(authToken), "Task 1", null);
+        taskWriteModel.setDescription("Description");
+        TaskReadModel task = createTasks(authToken, List.of(taskWriteModel)).get(0);
+        User watcher = userRepository.findByEmail("test1@wp.pl").get();
+        jdbcTemplate.update("insert into users_tasks(task_id, user_id) values (?, ?)", task.getId(), watcher.getId());
+
+        TaskPatchWriteModel patch = new TaskPatchWriteModel();
+        patch.setStatus(TaskStatus.IN_PROGRESS);
+
+        //when
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/api/tasks/" + task.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patch))
+                        .header("If-Match", "\"" + task.getVersion() + "\"")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"" + (task.getVersion() + 1) + "\""))
+                .andReturn();
+
+        //then
+        TaskReadModel patched = objectMapper.readValue(result.getResponse().getContentAsString(), TaskReadModel.class);
+        Assertions.assertEquals(TaskStatus.IN_PROGRESS, patched.getStatus());
+        Assertions.assertEquals("Task 1", patched.getName());
+        Assertions.assertEquals("Description", patched.getDescription());
+        Assertions.assertEquals(TaskPriority.HIGH, patched.getPriority());
+        Assertions.assertEquals(List.of("test1@wp.pl"), patched.getWatchers().stream().map(UserReadModel::getEmail).collect(Collectors.toList()));
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("select count(*) from users_tasks where task_id = ?", Long.class, task.getId()));
+    }
+
+    @Test
+    void shouldClearOwnerAndDueDateSentAsNull() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskBulkCreateWriteModel taskWriteModel = newBulkTask(createTaskGroup(authToken), "Task 1", userRepository.findByEmail("test1@wp.pl").get());
+        taskWriteModel.setDescription("Description");
+        taskWriteModel.setDueDate(LocalDate.of(2023, 3, 1));
+        TaskReadModel task = createTasks(authToken, List.of(taskWriteModel)).get(0);
+
+        //when
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/api/tasks/" + task.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"owner\": null, \"dueDate\": null}")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+
+        //then
+        TaskReadModel patched = objectMapper.readValue(result.getResponse().getContentAsString(), TaskReadModel.class);
+        Assertions.assertNull(patched.getOwner());
+        Assertions.assertNull(patched.getDueDate());
+        Assertions.assertEquals("Description", patched.getDescription());
+        Task saved = taskRepository.findById(task.getId()).get();
+        Assertions.assertNull(saved.getTaskOwner());
+        Assertions.assertNull(saved.getDueDate());
+    }
+
+    @Test
+    void shouldClearDescriptionOfPatchWithEmptyOptional() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskBulkCreateWriteModel taskWriteModel = newBulkTask(createTaskGroup(authToken), "Task 1", null);
+        taskWriteModel.setDescription("Description");
+        TaskReadModel task = createTasks(authToken, List.of(taskWriteModel)).get(0);
+        TaskPatchWriteModel patch = new TaskPatchWriteModel();
+        patch.setDescription(Optional.empty());
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/api/tasks/" + task.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patch))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+
+        //then
+        Task saved = taskRepository.findById(task.getId()).get();
+        Assertions.assertNull(saved.getDescription());
+        Assertions.assertEquals("Task 1", saved.getName());
+    }
+
+    @Test
+    void shouldNotPatchTaskChangedSinceGivenVersion() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskReadModel task = createTasks(authToken, List.of(newBulkTask(createTaskGroup(authToken), "Task 1", null))).get(0);
+        String ifMatch = "\"" + task.getVersion() + "\"";
+
+        TaskPatchWriteModel firstPatch = new TaskPatchWriteModel();
+        firstPatch.setName("Task 2");
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/api/tasks/" + task.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(firstPatch))
+                        .header("If-Match", ifMatch)
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+
+        TaskPatchWriteModel secondPatch = new TaskPatchWriteModel();
+        secondPatch.setName("Task 3");
+
+        //when + then
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/api/tasks/" + task.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(secondPatch))
+                        .header("If-Match", ifMatch)
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(412));
+        Assertions.assertEquals("Task 2", taskRepository.findAll().get(0).getName());
+    }
+
+    @Test
+    void shouldNotPatchTaskWhenGivenVersionIsWeak() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskReadModel task = createTasks(authToken, List.of(newBulkTask(createTaskGroup(authToken), "Task 1", null))).get(0);
+
+        TaskPatchWriteModel patch = new TaskPatchWriteModel();
+        patch.setName("Task 2");
+
+        //when + then
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/api/tasks/" + task.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patch))
+                        .header("If-Match", "W/\"" + task.getVersion() + "\"")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(412));
+        Assertions.assertEquals("Task 1", taskRepository.findAll().get(0).getName());
+    }
+
+    @Test
+    void shouldMoveTaskBetweenTwoTasksOfGroup() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskGroupReadModel taskGroup = createTaskGroup(authToken);
+        List<TaskReadModel> tasks = createTasks(authToken, List.of(
+                newBulkTask(taskGroup, "Task 1", null),
+                newBulkTask(taskGroup, "Task 2", null),
+                newBulkTask(taskGroup, "Task 3", null)));
+
+        //when
+        moveTask(authToken, tasks.get(2).getId(), taskGroup.getId(), tasks.get(0).getId(), tasks.get(1).getId())
+                .andExpect(MockMvcResultMatchers.status().is(200));
+
+        //then
+        Assertions.assertEquals(List.of("Task 1", "Task 3", "Task 2"), getTaskNamesInOrder(taskGroup.getId()));
+        Assertions.assertEquals(tasks.get(2).getVersion(), taskRepository.findById(tasks.get(2).getId()).get().getVersion());
+    }
+
+    @Test
+    void shouldMoveTaskToStartOfAnotherTaskGroup() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskGroupReadModel firstTaskGroup = createTaskGroup(authToken);
+        TaskGroupReadModel secondTaskGroup = createTaskGroup(authToken);
+        List<TaskReadModel> tasks = createTasks(authToken, List.of(
+                newBulkTask(firstTaskGroup, "Task 1", null),
+                newBulkTask(secondTaskGroup, "Task 2", null),
+                newBulkTask(secondTaskGroup, "Task 3", null)));
+
+        //when
+        moveTask(authToken, tasks.get(0).getId(), secondTaskGroup.getId(), null, tasks.get(1).getId())
+                .andExpect(MockMvcResultMatchers.status().is(200));
+
+        //then
+        Assertions.assertEquals(List.of("Task 1", "Task 2", "Task 3"), getTaskNamesInOrder(secondTaskGroup.getId()));
+        Assertions.assertEquals(List.of(), getTaskNamesInOrder(firstTaskGroup.getId()));
+        Assertions.assertEquals(3, jdbcTemplate.queryForObject("select sum(task_count) from project_task_statistics", Long.class));
+    }
+
+    @Test
+    void shouldNotMoveTaskNextToTaskOfAnotherGroup() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskGroupReadModel firstTaskGroup = createTaskGroup(authToken);
+        TaskGroupReadModel secondTaskGroup = createTaskGroup(authToken);
+        List<TaskReadModel> tasks = createTasks(authToken, List.of(
+                newBulkTask(firstTaskGroup, "Task 1", null),
+                newBulkTask(secondTaskGroup, "Task 2", null)));
+
+        //when
+        Exception exception = Assertions.assertThrows(Exception.class,
+                () -> moveTask(authToken, tasks.get(0).getId(), firstTaskGroup.getId(), tasks.get(1).getId(), null));
+
+        //then
+        Assertions.assertInstanceOf(NoSuchEntityException.class, exception.getCause());
+        Assertions.assertEquals(List.of("Task 1"), getTaskNamesInOrder(firstTaskGroup.getId()));
+    }
+
+    @Test
+    void shouldNotMoveTaskBetweenTasksInWrongOrder() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskGroupReadModel taskGroup = createTaskGroup(authToken);
+        List<TaskReadModel> tasks = createTasks(authToken, List.of(
+                newBulkTask(taskGroup, "Task 1", null),
+                newBulkTask(taskGroup, "Task 2", null),
+                newBulkTask(taskGroup, "Task 3", null)));
+
+        //when
+        moveTask(authToken, tasks.get(2).getId(), taskGroup.getId(), tasks.get(1).getId(), tasks.get(0).getId())
+                .andExpect(MockMvcResultMatchers.status().is(409));
+
+        //then
+        Assertions.assertEquals(List.of("Task 1", "Task 2", "Task 3"), getTaskNamesInOrder(taskGroup.getId()));
+    }
+
+    @Test
+    void shouldRebalanceTaskGroupsWithEqualRanks() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskGroupReadModel taskGroup = createTaskGroup(authToken);
+        createTasks(authToken, List.of(
+                newBulkTask(taskGroup, "Task 1", null),
+                newBulkTask(taskGroup, "Task 2", null),
+                newBulkTask(taskGroup, "Task 3", null)));
+        jdbcTemplate.update("update tasks set rank = 'i'");
+
+        //when
+        int rebalanced = taskRankService.rebalanceGroups();
+
+        //then
+        Assertions.assertEquals(1, rebalanced);
+        Assertions.assertEquals(List.of("Task 1", "Task 2", "Task 3"), getTaskNamesInOrder(taskGroup.getId()));
+        Assertions.assertEquals(3, jdbcTemplate.queryForObject("select count(distinct rank) from tasks", Long.class));
+        Assertions.assertEquals(0, taskRankService.rebalanceGroups());
+    }
+
+    @Test
+    void shouldSearchTasksByTextAndFilters() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE, PROJECT_READ));
+        TaskGroupReadModel taskGroup = createTaskGroup(authToken);
+        User owner = userRepository.findByEmail("test1@wp.pl").get();
+        TaskBulkCreateWriteModel firstTask = newBulkTask(taskGroup, "Send invoices", owner);
+        TaskBulkCreateWriteModel secondTask = newBulkTask(taskGroup, "Monthly report", owner);
+        secondTask.setDescription("Attach unpaid invoices");
+        secondTask.setStatus(TaskStatus.DONE);
+        TaskBulkCreateWriteModel thirdTask = newBulkTask(taskGroup, "Call the client", owner);
+        createTasks(authToken, List.of(firstTask, secondTask, thirdTask));
+
+        //when
+        TaskSearchPage found = searchTasks(authToken, "query=invoices");
+        TaskSearchPage foundDone = searchTasks(authToken, "query=invoices&status=DONE&ownerId=" + owner.getId());
+        TaskSearchPage firstPage = searchTasks(authToken, "query=invoices&size=1");
+        TaskSearchPage secondPage = searchTasks(authToken, "query=invoices&size=1&cursor=" + firstPage.getNextCursor());
+
+        //then
+        Assertions.assertEquals(List.of("Monthly report", "Send invoices"), getNames(found));
+        Assertions.assertEquals(List.of("Monthly report"), getNames(foundDone));
+        Assertions.assertEquals("test1@wp.pl", foundDone.getTasks().get(0).getOwner().getEmail());
+        Assertions.assertEquals(List.of("Monthly report"), getNames(firstPage));
+        Assertions.assertEquals(List.of("Send invoices"), getNames(secondPage));
+        Assertions.assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void shouldSearchCommentsOfTasksWhenAsked() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE, PROJECT_READ));
+        TaskReadModel task = createTasks(authToken, List.of(newBulkTask(createTaskGroup(authToken), "Task 1", null))).get(0);
+        User author = userRepository.findByEmail("test1@wp.pl").get();
+        jdbcTemplate.update("insert into comments(content, task_id, created_by_id, created_time) values (?, ?, ?, now())",
+                "Waiting for the signed contract", task.getId(), author.getId());
+
+        //when
+        TaskSearchPage withoutComments = searchTasks(authToken, "query=contract");
+        TaskSearchPage withComments = searchTasks(authToken, "query=contract&comments=true");
+
+        //then
+        Assertions.assertEquals(List.of(), getNames(withoutComments));
+        Assertions.assertEquals(List.of("Task 1"), getNames(withComments));
+    }
+
+    @Test
+    void shouldSearchOnlyTasksOfOwnOrganization() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE, PROJECT_READ));
+        String secondToken = authUtil.getUserWithRole("test2@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE, PROJECT_READ));
+        createTasks(authToken, List.of(newBulkTask(createTaskGroup(authToken), "Own task", null)));
+        TaskGroupReadModel otherTaskGroup = createTaskGroup(secondToken);
+        createTasks(secondToken, List.of(newBulkTask(otherTaskGroup, "Other task", null)));
+        long otherProjectId = jdbcTemplate.queryForObject("select project_id from task_groups where id = ?", Long.class, otherTaskGroup.getId());
+
+        //when
+        TaskSearchPage found = searchTasks(authToken, "query=task");
+
+        //then
+        Assertions.assertEquals(List.of("Own task"), getNames(found));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/search?query=task&projectId=" + otherProjectId)
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(403));
+    }
+
+    @Test
+    void shouldNotSearchTasksWhenUserHasNoPermission() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        createTasks(authToken, List.of(newBulkTask(createTaskGroup(authToken), "Own task", null)));
+
+        //when + then
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/search?query=task")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(403));
+    }
+
     @Test
     void shouldReturnCommentsForGivenTask() throws Exception {
         //given
@@ -404,12 +925,12 @@ class TaskResourceTest {
                 .andExpect(MockMvcResultMatchers.status().is(200))
                 .andReturn();
 
-        CommentReadModel[] commentReadModels = objectMapper.readValue(allComments.getResponse().getContentAsString(), CommentReadModel[].class);
+        List<CommentReadModel> commentReadModels = objectMapper.readValue(allComments.getResponse().getContentAsString(), CommentPage.class).getComments();
 
         //then
-        Assertions.assertEquals(2, commentReadModels.length);
-        Assertions.assertEquals("test1", commentReadModels[0].getContent());
-        Assertions.assertEquals("test2", commentReadModels[1].getContent());
+        Assertions.assertEquals(2, commentReadModels.size());
+        Assertions.assertEquals("test1", commentReadModels.get(0).getContent());
+        Assertions.assertEquals("test2", commentReadModels.get(1).getContent());
     }
 
     @Test
@@ -468,9 +989,9 @@ class TaskResourceTest {
                 .andExpect(MockMvcResultMatchers.status().is(200))
                 .andReturn();
 
-        TaskHistoryReadModel[] taskHistories = objectMapper.readValue(result.getResponse().getContentAsString(), TaskHistoryReadModel[].class);
+        List<TaskHistoryReadModel> taskHistories = objectMapper.readValue(result.getResponse().getContentAsString(), TaskHistoryPage.class).getHistories();
         //then
-        Assertions.assertEquals(1, taskHistories.length);
+        Assertions.assertEquals(1, taskHistories.size());
     }
 
     @Test
@@ -567,15 +1088,15 @@ class TaskResourceTest {
                 .andExpect(MockMvcResultMatchers.status().is(200))
                 .andReturn();
 
-        TaskHistoryReadModel[] taskHistories = objectMapper.readValue(result.getResponse().getContentAsString(), TaskHistoryReadModel[].class);
+        List<TaskHistoryReadModel> taskHistories = objectMapper.readValue(result.getResponse().getContentAsString(), TaskHistoryPage.class).getHistories();
         //then
-        Assertions.assertEquals(2, taskHistories.length);
+        Assertions.assertEquals(2, taskHistories.size());
     }
 
     @Test
-    void shouldAddTimeEntryWithGivenData() throws Exception {
+    void shouldRecordChangedFieldsInTaskHistory() throws Exception {
         //given
-        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_DELETE, TASK_GROUP_CREATE, PROJECT_CREATE, TIME_ENTRY_ADD));
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE, TASK_HISTORY_READ));
         TaskGroupReadModel taskGroupReadModel = createTaskGroup(authToken);
 
         TaskWriteModel taskWriteModel = new TaskWriteModel();
@@ -592,10 +1113,173 @@ class TaskResourceTest {
                 .andReturn();
         TaskReadModel taskReadModel = objectMapper.readValue(apiCall.getResponse().getContentAsString(), TaskReadModel.class);
 
-        TaskTimeEntryWriteModel taskTimeEntryWriteModel = new TaskTimeEntryWriteModel();
-        taskTimeEntryWriteModel.setDescription("Description");
-        taskTimeEntryWriteModel.setHoursSpent(3.5);
-        //when
+        taskWriteModel.setStatus(TaskStatus.IN_PROGRESS);
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/tasks/update/" + taskReadModel.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+
+        //when
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/history/" + taskReadModel.getId())
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+
+        List<TaskHistoryReadModel> taskHistories = objectMapper.readValue(result.getResponse().getContentAsString(), TaskHistoryPage.class).getHistories();
+        //then
+        TaskHistoryReadModel update = taskHistories.stream()
+                .filter(history -> history.getDescription().startsWith("Task updated"))
+                .findFirst().orElseThrow();
+        Assertions.assertEquals(1, update.getChanges().size());
+        Assertions.assertEquals("status", update.getChanges().get(0).getField());
+        Assertions.assertEquals("TO_DO", update.getChanges().get(0).getOldValue());
+        Assertions.assertEquals("IN_PROGRESS", update.getChanges().get(0).getNewValue());
+    }
+
+    @Test
+    void shouldReturnTaskHistoryPageByPage() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE, TASK_HISTORY_READ));
+        TaskReadModel taskReadModel = createTaskWithStatusChanges(authToken);
+
+        //when
+        MvcResult firstPageResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/history/" + taskReadModel.getId())
+                        .param("size", "2")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        TaskHistoryPage firstPage = objectMapper.readValue(firstPageResult.getResponse().getContentAsString(), TaskHistoryPage.class);
+
+        MvcResult secondPageResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/history/" + taskReadModel.getId())
+                        .param("size", "2")
+                        .param("cursor", String.valueOf(firstPage.getNextCursor()))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        TaskHistoryPage secondPage = objectMapper.readValue(secondPageResult.getResponse().getContentAsString(), TaskHistoryPage.class);
+
+        MvcResult sinceResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/history/" + taskReadModel.getId())
+                        .param("since", LocalDateTime.now().plusMinutes(1).toString())
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        TaskHistoryPage sincePage = objectMapper.readValue(sinceResult.getResponse().getContentAsString(), TaskHistoryPage.class);
+
+        //then
+        Assertions.assertEquals(2, firstPage.getHistories().size());
+        Assertions.assertEquals("DONE", firstPage.getHistories().get(0).getChanges().get(0).getNewValue());
+        Assertions.assertEquals(1, secondPage.getHistories().size());
+        Assertions.assertEquals("Task created", secondPage.getHistories().get(0).getDescription());
+        Assertions.assertNull(secondPage.getNextCursor());
+        Assertions.assertEquals(0, sincePage.getHistories().size());
+    }
+
+    @Test
+    void shouldCompactOldTaskHistory() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE, TASK_HISTORY_READ));
+        TaskReadModel taskReadModel = createTaskWithStatusChanges(authToken);
+        jdbcTemplate.update("update task_histories set created_at = created_at - interval '40 days'");
+
+        //when
+        int compactedGroups = taskHistoryService.compactHistory();
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/history/" + taskReadModel.getId())
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        List<TaskHistoryReadModel> taskHistories = objectMapper.readValue(result.getResponse().getContentAsString(), TaskHistoryPage.class).getHistories();
+
+        //then
+        Assertions.assertEquals(1, compactedGroups);
+        Assertions.assertEquals(1, taskHistories.size());
+        Assertions.assertEquals("Task created", taskHistories.get(0).getDescription());
+        TaskFieldChange status = taskHistories.get(0).getChanges().stream()
+                .filter(change -> change.getField().equals("status"))
+                .findFirst().orElseThrow();
+        Assertions.assertNull(status.getOldValue());
+        Assertions.assertEquals("DONE", status.getNewValue());
+    }
+
+    @Test
+    void shouldKeepHistoryOrderAfterCompaction() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE, TASK_HISTORY_READ));
+        TaskReadModel taskReadModel = createTaskWithStatusChanges(authToken);
+        jdbcTemplate.update("update task_histories set created_at = created_at - interval '41 days' where description = 'Task created'");
+        jdbcTemplate.update("update task_histories set created_at = created_at - interval '40 days' where description <> 'Task created'");
+
+        TaskWriteModel taskWriteModel = new TaskWriteModel();
+        taskWriteModel.setName("Task 1");
+        taskWriteModel.setStatus(TaskStatus.TO_DO);
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/tasks/update/" + taskReadModel.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+        int compactedGroups = taskHistoryService.compactHistory();
+
+        //when
+        List<TaskHistoryReadModel> taskHistories = new ArrayList<>();
+        Long cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                    .get("/api/tasks/history/" + taskReadModel.getId())
+                    .param("size", "1")
+                    .header("Authorization", "Bearer " + authToken);
+            if (cursor != null) {
+                request.param("cursor", String.valueOf(cursor));
+            }
+            MvcResult result = mockMvc.perform(request)
+                    .andExpect(MockMvcResultMatchers.status().is(200))
+                    .andReturn();
+            TaskHistoryPage page = objectMapper.readValue(result.getResponse().getContentAsString(), TaskHistoryPage.class);
+            taskHistories.addAll(page.getHistories());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        //then
+        Assertions.assertEquals(1, compactedGroups);
+        Assertions.assertEquals(3, taskHistories.size());
+        Assertions.assertEquals("TO_DO", taskHistories.get(0).getChanges().get(0).getNewValue());
+        Assertions.assertEquals("TO_DO", taskHistories.get(1).getChanges().get(0).getOldValue());
+        Assertions.assertEquals("DONE", taskHistories.get(1).getChanges().get(0).getNewValue());
+        Assertions.assertEquals("Task created", taskHistories.get(2).getDescription());
+        Assertions.assertEquals(0, taskHistoryService.compactHistory());
+    }
+
+    @Test
+    void shouldAddTimeEntryWithGivenData() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_DELETE, TASK_GROUP_CREATE, PROJECT_CREATE, TIME_ENTRY_ADD));
+        TaskGroupReadModel taskGroupReadModel = createTaskGroup(authToken);
+
+        TaskWriteModel taskWriteModel = new TaskWriteModel();
+        taskWriteModel.setName("Task 1");
+        taskWriteModel.setDescription("Description");
+        taskWriteModel.setStatus(TaskStatus.TO_DO);
+
+        MvcResult apiCall = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/create/" + taskGroupReadModel.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        TaskReadModel taskReadModel = objectMapper.readValue(apiCall.getResponse().getContentAsString(), TaskReadModel.class);
+
+        TaskTimeEntryWriteModel taskTimeEntryWriteModel = new TaskTimeEntryWriteModel();
+        taskTimeEntryWriteModel.setDescription("Description");
+        taskTimeEntryWriteModel.setHoursSpent(3.5);
+        //when
         mockMvc.perform(MockMvcRequestBuilders
                         .post("/api/tasks/timesheet/" + taskReadModel.getId())
                         .contentType(MediaType.APPLICATION_JSON)
@@ -680,6 +1364,189 @@ class TaskResourceTest {
                 .andReturn();
     }
 
+    @Test
+    void shouldExportTimeEntriesOfProjectToCsv() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE, TIME_ENTRY_ADD, TIME_ENTRY_READ_ALL));
+        TaskGroupReadModel taskGroupReadModel = createTaskGroup(authToken);
+        long projectId = projectRepository.findAll().get(0).getId();
+
+        TaskWriteModel taskWriteModel = new TaskWriteModel();
+        taskWriteModel.setName("Task 1");
+        taskWriteModel.setDescription("Description");
+        taskWriteModel.setStatus(TaskStatus.TO_DO);
+
+        MvcResult apiCall = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/create/" + taskGroupReadModel.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        TaskReadModel taskReadModel = objectMapper.readValue(apiCall.getResponse().getContentAsString(), TaskReadModel.class);
+
+        TaskTimeEntryWriteModel taskTimeEntryWriteModel = new TaskTimeEntryWriteModel();
+        taskTimeEntryWriteModel.setDescription("Description");
+        taskTimeEntryWriteModel.setHoursSpent(3.5);
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/timesheet/" + taskReadModel.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskTimeEntryWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+
+        //when
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/timesheet/export/" + projectId)
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+
+        //then
+        String[] lines = result.getResponse().getContentAsString().split("\r\n");
+        Assertions.assertEquals("text/csv", result.getResponse().getContentType());
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertEquals("Hours spent,Time description,User email,Task name", lines[0]);
+        Assertions.assertEquals("3.5,Description,test1@wp.pl,Task 1", lines[1]);
+    }
+
+    @Test
+    void shouldNotExportTimeEntriesWhenUserIsPartOfAnotherOrganization() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_GROUP_CREATE, PROJECT_CREATE, TIME_ENTRY_READ_ALL));
+        String secondToken = authUtil.getUserWithRole("test2@wp.pl", List.of(TIME_ENTRY_READ_ALL));
+        createTaskGroup(authToken);
+        long projectId = projectRepository.findAll().get(0).getId();
+
+        //when + then
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/timesheet/export/" + projectId)
+                        .header("Authorization", "Bearer " + secondToken))
+                .andExpect(MockMvcResultMatchers.status().is(403));
+    }
+
+    @Test
+    void shouldExportTimeEntriesOfProjectInBackground() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE, TIME_ENTRY_ADD, TIME_ENTRY_READ_ALL));
+        long projectId = createProjectWithTimeEntry(authToken);
+
+        //when
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/timesheet/export/" + projectId + "/jobs")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        ExportJobReadModel exportJob = objectMapper.readValue(result.getResponse().getContentAsString(), ExportJobReadModel.class);
+
+        for (int i = 0; i < 100 && exportJob.getStatus() != ExportJobStatus.DONE; i++) {
+            Thread.sleep(100);
+            result = mockMvc.perform(MockMvcRequestBuilders
+                            .get("/api/tasks/timesheet/export/jobs/" + exportJob.getId())
+                            .header("Authorization", "Bearer " + authToken))
+                    .andExpect(MockMvcResultMatchers.status().is(200))
+                    .andReturn();
+            exportJob = objectMapper.readValue(result.getResponse().getContentAsString(), ExportJobReadModel.class);
+        }
+
+        MvcResult file = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/timesheet/export/jobs/" + exportJob.getId() + "/file")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        MvcResult range = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/timesheet/export/jobs/" + exportJob.getId() + "/file")
+                        .header("Range", "bytes=0-9")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(206))
+                .andReturn();
+
+        //then
+        Assertions.assertEquals(ExportJobStatus.DONE, exportJob.getStatus());
+        byte[] content = file.getResponse().getContentAsByteArray();
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(content)).readAllBytes(), StandardCharsets.UTF_8);
+        Assertions.assertEquals("Hours spent,Time description,User email,Task name\r\n3.5,Description,test1@wp.pl,Task 1\r\n", csv);
+        Assertions.assertArrayEquals(Arrays.copyOf(content, 10), range.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    void shouldReturnTheSameExportJobWhenTimeEntriesDidNotChange() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE, TIME_ENTRY_ADD, TIME_ENTRY_READ_ALL));
+        long projectId = createProjectWithTimeEntry(authToken);
+
+        //when
+        MvcResult first = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/timesheet/export/" + projectId + "/jobs")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        MvcResult second = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/timesheet/export/" + projectId + "/jobs")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+
+        //then
+        ExportJobReadModel firstJob = objectMapper.readValue(first.getResponse().getContentAsString(), ExportJobReadModel.class);
+        ExportJobReadModel secondJob = objectMapper.readValue(second.getResponse().getContentAsString(), ExportJobReadModel.class);
+        Assertions.assertEquals(firstJob.getId(), secondJob.getId());
+    }
+
+    @Test
+    void shouldStartNewExportJobWhenTimeEntryWasEdited() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE, TIME_ENTRY_ADD, TIME_ENTRY_READ_ALL));
+        long projectId = createProjectWithTimeEntry(authToken);
+        MvcResult first = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/timesheet/export/" + projectId + "/jobs")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+
+        //when
+        jdbcTemplate.update("update task_time_entry set hours_spent = 4.5");
+        MvcResult second = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/timesheet/export/" + projectId + "/jobs")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        jdbcTemplate.update("update tasks set name = 'Task 2'");
+        MvcResult third = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/timesheet/export/" + projectId + "/jobs")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+
+        //then
+        ExportJobReadModel firstJob = objectMapper.readValue(first.getResponse().getContentAsString(), ExportJobReadModel.class);
+        ExportJobReadModel secondJob = objectMapper.readValue(second.getResponse().getContentAsString(), ExportJobReadModel.class);
+        ExportJobReadModel thirdJob = objectMapper.readValue(third.getResponse().getContentAsString(), ExportJobReadModel.class);
+        Assertions.assertNotEquals(firstJob.getId(), secondJob.getId());
+        Assertions.assertNotEquals(secondJob.getId(), thirdJob.getId());
+    }
+
+    @Test
+    void shouldNotReturnExportJobWhenUserIsPartOfAnotherOrganization() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE, TIME_ENTRY_ADD, TIME_ENTRY_READ_ALL));
+        String secondToken = authUtil.getUserWithRole("test2@wp.pl", List.of(TIME_ENTRY_READ_ALL));
+        long projectId = createProjectWithTimeEntry(authToken);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/timesheet/export/" + projectId + "/jobs")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        ExportJobReadModel exportJob = objectMapper.readValue(result.getResponse().getContentAsString(), ExportJobReadModel.class);
+
+        //when + then
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/timesheet/export/jobs/" + exportJob.getId())
+                        .header("Authorization", "Bearer " + secondToken))
+                .andExpect(MockMvcResultMatchers.status().is(403));
+    }
+
     @Test
     void shouldDeleteTimeEntry() throws Exception {
         //given
@@ -855,10 +1722,82 @@ class TaskResourceTest {
                 .andExpect(MockMvcResultMatchers.status().is(200))
                 .andReturn();
 
-        TaskTimeEntryReadModel[] taskTimeEntryReadModels = objectMapper.readValue(authorization.getResponse().getContentAsString(), TaskTimeEntryReadModel[].class);
+        TimeEntryPage timeEntryPage = objectMapper.readValue(authorization.getResponse().getContentAsString(), TimeEntryPage.class);
 
         //then
-        Assertions.assertEquals(2, taskTimeEntryReadModels.length);
+        Assertions.assertEquals(2, timeEntryPage.getTimeEntries().size());
+    }
+
+    @Test
+    void shouldReturnTimeEntriesOfProjectPageByPage() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE, TIME_ENTRY_ADD, TIME_ENTRY_READ_ALL));
+        long projectId = createProjectWithTimeEntry(authToken);
+        long taskId = taskRepository.findAll().get(0).getId();
+        addTimeEntry(authToken, taskId, 1, false);
+        addTimeEntry(authToken, taskId, 2, true);
+
+        //when
+        MvcResult firstPageResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/projects/timesheet/" + projectId)
+                        .param("size", "2")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        TimeEntryPage firstPage = objectMapper.readValue(firstPageResult.getResponse().getContentAsString(), TimeEntryPage.class);
+
+        MvcResult secondPageResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/projects/timesheet/" + projectId)
+                        .param("size", "2")
+                        .param("cursor", String.valueOf(firstPage.getNextCursor()))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        TimeEntryPage secondPage = objectMapper.readValue(secondPageResult.getResponse().getContentAsString(), TimeEntryPage.class);
+
+        //then
+        Assertions.assertEquals(2, firstPage.getTimeEntries().size());
+        Assertions.assertEquals(2, firstPage.getTimeEntries().get(0).getHoursSpent());
+        Assertions.assertEquals(1, firstPage.getTimeEntries().get(1).getHoursSpent());
+        Assertions.assertEquals(6.5, firstPage.getTotalHours());
+        Assertions.assertEquals(5.5, firstPage.getTotalBillableHours());
+        Assertions.assertEquals(1, firstPage.getTotalNonBillableHours());
+        Assertions.assertEquals(1, secondPage.getTimeEntries().size());
+        Assertions.assertEquals(3.5, secondPage.getTimeEntries().get(0).getHoursSpent());
+        Assertions.assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void shouldFilterTimeEntriesOfTaskByUserAndDate() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_GROUP_CREATE, PROJECT_CREATE, TIME_ENTRY_ADD, TIME_ENTRY_READ_ALL));
+        createProjectWithTimeEntry(authToken);
+        long taskId = taskRepository.findAll().get(0).getId();
+        long userId = userRepository.findByEmail("test1@wp.pl").orElseThrow().getId();
+
+        //when
+        MvcResult todayResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/timesheet/" + taskId)
+                        .param("userId", String.valueOf(userId))
+                        .param("from", LocalDate.now().toString())
+                        .param("to", LocalDate.now().toString())
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        MvcResult tomorrowResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/timesheet/" + taskId)
+                        .param("from", LocalDate.now().plusDays(1).toString())
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+
+        //then
+        TimeEntryPage today = objectMapper.readValue(todayResult.getResponse().getContentAsString(), TimeEntryPage.class);
+        TimeEntryPage tomorrow = objectMapper.readValue(tomorrowResult.getResponse().getContentAsString(), TimeEntryPage.class);
+        Assertions.assertEquals(1, today.getTimeEntries().size());
+        Assertions.assertEquals(3.5, today.getTotalHours());
+        Assertions.assertEquals(0, tomorrow.getTimeEntries().size());
+        Assertions.assertEquals(0, tomorrow.getTotalHours());
     }
 
     @Test
@@ -935,10 +1874,10 @@ class TaskResourceTest {
                 .andExpect(MockMvcResultMatchers.status().is(200))
                 .andReturn();
 
-        TaskTimeEntryReadModel[] taskTimeEntryReadModels = objectMapper.readValue(authorization.getResponse().getContentAsString(), TaskTimeEntryReadModel[].class);
+        TimeEntryPage timeEntryPage = objectMapper.readValue(authorization.getResponse().getContentAsString(), TimeEntryPage.class);
 
         //then
-        Assertions.assertEquals(1, taskTimeEntryReadModels.length);
+        Assertions.assertEquals(1, timeEntryPage.getTimeEntries().size());
     }
 
     @Test
@@ -983,6 +1922,130 @@ class TaskResourceTest {
                 .andExpect(MockMvcResultMatchers.status().is(403));
     }
 
+    private long createProjectWithTimeEntry(String authToken) throws Exception {
+        TaskGroupReadModel taskGroupReadModel = createTaskGroup(authToken);
+
+        TaskWriteModel taskWriteModel = new TaskWriteModel();
+        taskWriteModel.setName("Task 1");
+        taskWriteModel.setDescription("Description");
+        taskWriteModel.setStatus(TaskStatus.TO_DO);
+
+        MvcResult apiCall = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/create/" + taskGroupReadModel.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        TaskReadModel taskReadModel = objectMapper.readValue(apiCall.getResponse().getContentAsString(), TaskReadModel.class);
+
+        TaskTimeEntryWriteModel taskTimeEntryWriteModel = new TaskTimeEntryWriteModel();
+        taskTimeEntryWriteModel.setDescription("Description");
+        taskTimeEntryWriteModel.setHoursSpent(3.5);
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/timesheet/" + taskReadModel.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskTimeEntryWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+        return projectRepository.findAll().get(0).getId();
+    }
+
+    private void addTimeEntry(String authToken, long taskId, double hoursSpent, boolean billable) throws Exception {
+        TaskTimeEntryWriteModel taskTimeEntryWriteModel = new TaskTimeEntryWriteModel();
+        taskTimeEntryWriteModel.setDescription("Description");
+        taskTimeEntryWriteModel.setHoursSpent(hoursSpent);
+        taskTimeEntryWriteModel.setBillable(billable);
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/timesheet/" + taskId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskTimeEntryWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+    }
+
+    private TaskReadModel createTaskWithStatusChanges(String authToken) throws Exception {
+        TaskGroupReadModel taskGroupReadModel = createTaskGroup(authToken);
+
+        TaskWriteModel taskWriteModel = new TaskWriteModel();
+        taskWriteModel.setName("Task 1");
+        taskWriteModel.setStatus(TaskStatus.TO_DO);
+
+        MvcResult apiCall = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/create/" + taskGroupReadModel.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        TaskReadModel taskReadModel = objectMapper.readValue(apiCall.getResponse().getContentAsString(), TaskReadModel.class);
+
+        for (TaskStatus status : List.of(TaskStatus.IN_PROGRESS, TaskStatus.DONE)) {
+            taskWriteModel.setStatus(status);
+            mockMvc.perform(MockMvcRequestBuilders
+                            .put("/api/tasks/update/" + taskReadModel.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(taskWriteModel))
+                            .header("Authorization", "Bearer " + authToken))
+                    .andExpect(MockMvcResultMatchers.status().is(200));
+        }
+        return taskReadModel;
+    }
+
+    private List<TaskReadModel> createTasks(String authToken, List<TaskBulkCreateWriteModel> tasks) throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/bulk/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tasks))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        return Arrays.asList(objectMapper.readValue(result.getResponse().getContentAsString(), TaskReadModel[].class));
+    }
+
+    private ResultActions moveTask(String authToken, long taskId, long taskGroupId, Long afterTaskId, Long beforeTaskId) throws Exception {
+        TaskMoveWriteModel move = new TaskMoveWriteModel();
+        move.setTaskGroupId(taskGroupId);
+        move.setAfterTaskId(afterTaskId);
+        move.setBeforeTaskId(beforeTaskId);
+        return mockMvc.perform(MockMvcRequestBuilders
+                .put("/api/tasks/" + taskId + "/move")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(move))
+                .header("Authorization", "Bearer " + authToken));
+    }
+
+    private TaskSearchPage searchTasks(String authToken, String parameters) throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/tasks/search?" + parameters)
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200))
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), TaskSearchPage.class);
+    }
+
+    private List<String> getNames(TaskSearchPage page) {
+        return page.getTasks().stream().map(TaskSearchReadModel::getName).collect(Collectors.toList());
+    }
+
+    private List<String> getTaskNamesInOrder(long taskGroupId) {
+        return jdbcTemplate.queryForList("select name from tasks where task_group_id = ? order by rank", String.class, taskGroupId);
+    }
+
+    private TaskBulkCreateWriteModel newBulkTask(TaskGroupReadModel taskGroup, String name, User owner) {
+        TaskBulkCreateWriteModel task = new TaskBulkCreateWriteModel();
+        task.setTaskGroupId(taskGroup.getId());
+        task.setName(name);
+        task.setStatus(TaskStatus.TO_DO);
+        task.setPriority(TaskPriority.HIGH);
+        if (owner != null) {
+            OwnerWriteModel ownerWriteModel = new OwnerWriteModel();
+            ownerWriteModel.setId(owner.getId());
+            task.setOwner(ownerWriteModel);
+        }
+        return task;
+    }
+
     private TaskGroupReadModel createTaskGroup(String authToken) throws Exception {
         ProjectWriteModel projectWriteModel = new ProjectWriteModel();
         projectWriteModel.setName("Test 2");
@@ -1073,20 +2136,69 @@ class TaskResourceTest {
         taskWriteModel1.setDueDate(LocalDate.of(1999, 2,2));
         taskWriteModel1.setEstimatedWorkTime(3.5);
 
-        List<NotificationReadModel> allNotificationsBefore = notificationService.getAllNotifications(byEmail);
+        List<NotificationReadModel> allNotificationsBefore = notificationService.getNotifications(byEmail, new NotificationFilter()).getNotifications();
         mockMvc.perform(MockMvcRequestBuilders
                         .put("/api/tasks/update/" + taskReadModel.getId())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(taskWriteModel1))
                         .header("Authorization", "Bearer " + authToken))
                 .andExpect(MockMvcResultMatchers.status().is(200));
+        notificationDispatcher.dispatch();
 
         //then
-        List<NotificationReadModel> allNotificationsAfter = notificationService.getAllNotifications(byEmail);
+        List<NotificationReadModel> allNotificationsAfter = notificationService.getNotifications(byEmail, new NotificationFilter()).getNotifications();
 
         Assertions.assertEquals(allNotificationsBefore.size() + 1, allNotificationsAfter.size());
     }
 
+    @Test
+    void shouldPushNotificationToOpenStreamOfOwner() throws Exception {
+        //given
+        String authToken = authUtil.getUserWithRole("test1@wp.pl", List.of(TASK_CREATE, TASK_UPDATE, TASK_GROUP_CREATE, PROJECT_CREATE));
+        TaskGroupReadModel taskGroupReadModel = createTaskGroup(authToken);
+
+        TaskWriteModel taskWriteModel = new TaskWriteModel();
+        taskWriteModel.setName("Task 1");
+        taskWriteModel.setStatus(TaskStatus.IN_PROGRESS);
+
+        MvcResult createResult = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/tasks/create/" + taskGroupReadModel.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200)).andReturn();
+        TaskReadModel taskReadModel = objectMapper.readValue(createResult.getResponse().getContentAsString(), TaskReadModel.class);
+
+        MvcResult stream = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/notifications/stream")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        OwnerWriteModel ownerWriteModel = new OwnerWriteModel();
+        ownerWriteModel.setId(userRepository.findByEmail("test1@wp.pl").get().getId());
+        taskWriteModel.setOwner(ownerWriteModel);
+        taskWriteModel.setStatus(TaskStatus.DONE);
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/tasks/update/" + taskReadModel.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskWriteModel))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(MockMvcResultMatchers.status().is(200));
+        notificationDispatcher.dispatch();
+
+        //then
+        String events = stream.getResponse().getContentAsString();
+        for (int attempt = 0; attempt < 50 && !events.contains("event:notification"); attempt++) {
+            Thread.sleep(100);
+            events = stream.getResponse().getContentAsString();
+        }
+        Assertions.assertTrue(events.contains("event:notification"));
+        Assertions.assertTrue(events.contains("Status of your task was changed from IN_PROGRESS to DONE"));
+    }
+
     @Test
     void shouldNotAddNotificationForOwnerIfStatusNotChange() throws Exception {
         //given
@@ -1120,16 +2232,17 @@ class TaskResourceTest {
         taskWriteModel1.setDueDate(LocalDate.of(1999, 2,2));
         taskWriteModel1.setEstimatedWorkTime(3.5);
 
-        List<NotificationReadModel> allNotificationsBefore = notificationService.getAllNotifications(byEmail);
+        List<NotificationReadModel> allNotificationsBefore = notificationService.getNotifications(byEmail, new NotificationFilter()).getNotifications();
         mockMvc.perform(MockMvcRequestBuilders
                         .put("/api/tasks/update/" + taskReadModel.getId())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(taskWriteModel1))
                         .header("Authorization", "Bearer " + authToken))
                 .andExpect(MockMvcResultMatchers.status().is(200));
+        notificationDispatcher.dispatch();
 
         //then
-        List<NotificationReadModel> allNotificationsAfter = notificationService.getAllNotifications(byEmail);
+        List<NotificationReadModel> allNotificationsAfter = notificationService.getNotifications(byEmail, new NotificationFilter()).getNotifications();
 
         Assertions.assertEquals(allNotificationsBefore.size(), allNotificationsAfter.size());
     }
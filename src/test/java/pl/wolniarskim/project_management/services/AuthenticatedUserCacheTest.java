@@ -0,0 +1,63 @@
+package pl.wolniarskim.project_management.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wolniarskim.project_management.models.User;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AuthenticatedUserCacheTest {
+
+    @Test
+    void shouldLoadUserOnlyOnceForTheSameToken() {
+        //given
+        AuthenticatedUserCache cache = new AuthenticatedUserCache(10, 60000);
+        AtomicInteger loads = new AtomicInteger();
+        Date expiresAt = new Date(System.currentTimeMillis() + 60000);
+        //when
+        cache.get("test@wp.pl", expiresAt, () -> loadUser("test@wp.pl", loads));
+        User user = cache.get("test@wp.pl", expiresAt, () -> loadUser("test@wp.pl", loads));
+        //then
+        Assertions.assertEquals("test@wp.pl", user.getEmail());
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void shouldLoadUserAgainAfterInvalidation() {
+        //given
+        AuthenticatedUserCache cache = new AuthenticatedUserCache(10, 60000);
+        AtomicInteger loads = new AtomicInteger();
+        Date expiresAt = new Date(System.currentTimeMillis() + 60000);
+        cache.get("test@wp.pl", expiresAt, () -> loadUser("test@wp.pl", loads));
+        //when
+        cache.invalidate("test@wp.pl");
+        cache.get("test@wp.pl", expiresAt, () -> loadUser("test@wp.pl", loads));
+        //then
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldNotKeepMoreUsersThanMaxSize() {
+        //given
+        AuthenticatedUserCache cache = new AuthenticatedUserCache(2, 60000);
+        AtomicInteger loads = new AtomicInteger();
+        Date expiresAt = new Date(System.currentTimeMillis() + 60000);
+        //when
+        cache.get("test1@wp.pl", expiresAt, () -> loadUser("test1@wp.pl", loads));
+        cache.get("test2@wp.pl", expiresAt, () -> loadUser("test2@wp.pl", loads));
+        cache.get("test3@wp.pl", expiresAt, () -> loadUser("test3@wp.pl", loads));
+        //then
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(1, cache.getEvictionCount());
+    }
+
+    private User loadUser(String email, AtomicInteger loads){
+        loads.incrementAndGet();
+        User user = new User();
+        user.setEmail(email);
+        return user;
+    }
+}
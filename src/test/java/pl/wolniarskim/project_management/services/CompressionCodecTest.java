@@ -0,0 +1,71 @@
+package pl.wolniarskim.project_management.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+class CompressionCodecTest {
+
+    private final CompressionCodec compressionCodec = new CompressionCodec(6, 2);
+
+    @Test
+    void shouldDeflateAndInflateValue() throws DataFormatException {
+        //given
+        byte[] data = csv(1000);
+        //when
+        byte[] deflated = compressionCodec.deflate(data);
+        //then
+        Assertions.assertTrue(deflated.length < data.length / 4);
+        Assertions.assertArrayEquals(data, compressionCodec.inflate(deflated, 0, deflated.length));
+    }
+
+    @Test
+    void shouldDeflateValueReadableAsZlib() throws IOException {
+        //given
+        byte[] data = csv(100);
+        //when
+        byte[] deflated = compressionCodec.deflate(data);
+        //then
+        Assertions.assertArrayEquals(data, new InflaterInputStream(new ByteArrayInputStream(deflated)).readAllBytes());
+    }
+
+    @Test
+    void shouldWriteStreamReadableAsGzip() throws IOException {
+        //given
+        byte[] data = csv(5000);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        //when
+        try (OutputStream compressing = compressionCodec.compressingStream(output)) {
+            for (int offset = 0; offset < data.length; offset += 1000) {
+                compressing.write(data, offset, Math.min(1000, data.length - offset));
+            }
+        }
+        //then
+        Assertions.assertArrayEquals(data, new GZIPInputStream(new ByteArrayInputStream(output.toByteArray())).readAllBytes());
+    }
+
+    @Test
+    void shouldRejectCorruptedData() {
+        //given
+        byte[] deflated = compressionCodec.deflate(csv(100));
+        deflated[deflated.length - 1]++;
+        //when + then
+        Assertions.assertThrows(DataFormatException.class, () -> compressionCodec.inflate(deflated, 0, deflated.length));
+    }
+
+    private static byte[] csv(int rows) {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            csv.append(i).append(",Task ").append(i % 37).append(",test").append(i % 5).append("@wp.pl,").append(i * 15).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,60 @@
+package pl.wolniarskim.project_management.services;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class JwtKeyRingTest {
+
+    @Test
+    void shouldVerifyTokenSignedWithActiveKey() {
+        //given
+        JwtKeyRing jwtKeyRing = new JwtKeyRing("secret", "v2", List.of());
+        String token = jwtKeyRing.sign(JWT.create().withSubject("test@wp.pl"));
+        //when + then
+        Assertions.assertEquals("v2", JWT.decode(token).getKeyId());
+        Assertions.assertEquals("test@wp.pl", jwtKeyRing.verify(token).getSubject());
+    }
+
+    @Test
+    void shouldVerifyTokenSignedWithPreviousKey() {
+        //given
+        JwtKeyRing oldKeyRing = new JwtKeyRing("old-secret", "v1", List.of());
+        JwtKeyRing jwtKeyRing = new JwtKeyRing("secret", "v2", List.of("v1=old-secret"));
+        String token = oldKeyRing.sign(JWT.create().withSubject("test@wp.pl"));
+        //when + then
+        Assertions.assertEquals("test@wp.pl", jwtKeyRing.verify(token).getSubject());
+    }
+
+    @Test
+    void shouldVerifyTokenWithoutKeyIdUsingActiveKey() {
+        //given
+        JwtKeyRing jwtKeyRing = new JwtKeyRing("secret", "default", List.of());
+        String token = JWT.create().withSubject("test@wp.pl").sign(Algorithm.HMAC256("secret"));
+        //when + then
+        Assertions.assertEquals("test@wp.pl", jwtKeyRing.verify(token).getSubject());
+    }
+
+    @Test
+    void shouldRejectTokenSignedWithUnknownKey() {
+        //given
+        JwtKeyRing otherKeyRing = new JwtKeyRing("other-secret", "v3", List.of());
+        JwtKeyRing jwtKeyRing = new JwtKeyRing("secret", "v2", List.of());
+        String token = otherKeyRing.sign(JWT.create().withSubject("test@wp.pl"));
+        //when + then
+        Assertions.assertThrows(JWTVerificationException.class, () -> jwtKeyRing.verify(token));
+    }
+
+    @Test
+    void shouldRejectTokenWithWrongSignature() {
+        //given
+        JwtKeyRing jwtKeyRing = new JwtKeyRing("secret", "default", List.of());
+        String token = JWT.create().withSubject("test@wp.pl").sign(Algorithm.HMAC256("wrong"));
+        //when + then
+        Assertions.assertThrows(JWTVerificationException.class, () -> jwtKeyRing.verify(token));
+    }
+}
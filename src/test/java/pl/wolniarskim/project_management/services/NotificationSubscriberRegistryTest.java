@@ -0,0 +1,75 @@
+package pl.wolniarskim.project_management.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.wolniarskim.project_management.models.DTO.NotificationReadModel;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class NotificationSubscriberRegistryTest {
+
+    // one sender thread and a write timeout of 100 ms
+    private final NotificationSubscriberRegistry registry = new NotificationSubscriberRegistry(1, 10, 5, 60_000, 100);
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void shouldKeepSendingToOtherStreamsWhileOneWriteIsBlocked() throws Exception {
+        //given
+        CountDownLatch blockedWriteStarted = new CountDownLatch(1);
+        CountDownLatch releaseBlockedWrite = new CountDownLatch(1);
+        CountDownLatch blockedStreamCompleted = new CountDownLatch(1);
+        registry.subscribe(1, new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                blockedWriteStarted.countDown();
+                try {
+                    releaseBlockedWrite.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+
+            @Override
+            public void complete() {
+                blockedStreamCompleted.countDown();
+            }
+        });
+        BlockingQueue<SseEmitter.SseEventBuilder> received = new LinkedBlockingQueue<>();
+        registry.subscribe(2, new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                received.add(builder);
+            }
+        });
+        registry.publish(1, notification(1));
+        Assertions.assertTrue(blockedWriteStarted.await(5, TimeUnit.SECONDS));
+
+        //when
+        Thread.sleep(200);
+        registry.closeStalledStreams();
+        registry.publish(2, notification(2));
+
+        //then
+        Assertions.assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, registry.getConnectionCount());
+        releaseBlockedWrite.countDown();
+        Assertions.assertTrue(blockedStreamCompleted.await(5, TimeUnit.SECONDS));
+    }
+
+    private static NotificationReadModel notification(long id) {
+        NotificationReadModel notification = new NotificationReadModel();
+        notification.setId(id);
+        notification.setNotificationContent("Notification " + id);
+        return notification;
+    }
+}
@@ -0,0 +1,110 @@
+package pl.wolniarskim.project_management.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+class ProfileImageServiceTest {
+
+    @TempDir
+    Path imageDirectory;
+
+    private ProfileImageService profileImageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        profileImageService = new ProfileImageService(null, imageDirectory.toString(), new int[]{256, 32, 64}, 50_000_000, 2, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        profileImageService.shutdown();
+    }
+
+    @Test
+    void shouldServeSmallestRenditionCoveringRequestedSize() throws IOException {
+        //given
+        String hash = profileImageService.store(image(1200, 800, BufferedImage.TYPE_INT_RGB, "jpg"));
+        //when
+        Path rendition = profileImageService.find(hash, 40).orElseThrow();
+        //then
+        BufferedImage decoded = ImageIO.read(rendition.toFile());
+        Assertions.assertEquals(64, decoded.getWidth());
+        Assertions.assertEquals(43, decoded.getHeight());
+        Assertions.assertEquals("image/jpeg", profileImageService.getContentType(rendition).orElseThrow());
+        Assertions.assertTrue(Files.size(rendition) < Files.size(profileImageService.find(hash).orElseThrow()));
+    }
+
+    @Test
+    void shouldKeepTransparentRenditionsAsPng() throws IOException {
+        //given
+        String hash = profileImageService.store(image(300, 300, BufferedImage.TYPE_INT_ARGB, "png"));
+        //when
+        Path rendition = profileImageService.find(hash, 32).orElseThrow();
+        //then
+        Assertions.assertEquals(32, ImageIO.read(rendition.toFile()).getWidth());
+        Assertions.assertEquals("image/png", profileImageService.getContentType(rendition).orElseThrow());
+    }
+
+    @Test
+    void shouldServeOriginalWhenRequestedSizeIsLargerThanRenditions() throws IOException {
+        //given
+        String hash = profileImageService.store(image(600, 600, BufferedImage.TYPE_INT_RGB, "jpg"));
+        //when + then
+        Assertions.assertEquals(profileImageService.find(hash), profileImageService.find(hash, 512));
+    }
+
+    @Test
+    void shouldStoreBytesWhichAreNotAnImageWithoutRenditions() {
+        //given
+        String hash = profileImageService.store(new byte[]{1, 2, 3});
+        //when + then
+        Assertions.assertEquals(profileImageService.find(hash), profileImageService.find(hash, 32));
+    }
+
+    @Test
+    void shouldSkipLegacyImageWhichCannotBeStored() throws IOException {
+        //given
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        Mockito.when(jdbcTemplate.queryForList(Mockito.anyString(), Mockito.eq(0L), Mockito.anyInt())).thenReturn(List.of(
+                Map.of("id", 1L, "profile_image", new byte[]{1, 2, 3}),
+                Map.of("id", 2L, "profile_image", new byte[]{4, 5, 6})));
+        ProfileImageService migratingService = new ProfileImageService(jdbcTemplate, imageDirectory.toString(), new int[]{32}, 50_000_000, 1, 10);
+        // a file where the directory of the first image has to be created
+        Files.write(imageDirectory.resolve("03"), new byte[0]);
+
+        //when
+        migratingService.migrateLegacyImages();
+        migratingService.shutdown();
+        String storedHash = profileImageService.store(new byte[]{4, 5, 6});
+
+        //then
+        Mockito.verify(jdbcTemplate).update(Mockito.anyString(), Mockito.eq(storedHash), Mockito.eq(2L));
+        Mockito.verify(jdbcTemplate, Mockito.never()).update(Mockito.anyString(), Mockito.any(), Mockito.eq(1L));
+    }
+
+    private static byte[] image(int width, int height, int type, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, 0x80000000 | (x * 255 / width) << 16 | (y * 255 / height) << 8 | (x * y) % 255);
+            }
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, format, output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,95 @@
+package pl.wolniarskim.project_management.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wolniarskim.project_management.models.DTO.TaskFieldChange;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+class TaskChangeCodecTest {
+
+    private final TaskChangeCodec taskChangeCodec = new TaskChangeCodec(new CompressionCodec(6, 2));
+
+    @Test
+    void shouldDecodeEncodedChanges() {
+        //given
+        List<TaskFieldChange> changes = List.of(
+                new TaskFieldChange("status", "TO_DO", "DONE"),
+                new TaskFieldChange("owner", null, "1"));
+        //when
+        List<TaskFieldChange> decoded = taskChangeCodec.decode(taskChangeCodec.encode(changes));
+        //then
+        Assertions.assertEquals(2, decoded.size());
+        Assertions.assertEquals("status", decoded.get(0).getField());
+        Assertions.assertEquals("TO_DO", decoded.get(0).getOldValue());
+        Assertions.assertEquals("DONE", decoded.get(0).getNewValue());
+        Assertions.assertNull(decoded.get(1).getOldValue());
+    }
+
+    @Test
+    void shouldCompressLongChanges() {
+        //given
+        String description = "Long description ".repeat(100);
+        List<TaskFieldChange> changes = List.of(new TaskFieldChange("description", description, description + "!"));
+        //when
+        byte[] encoded = taskChangeCodec.encode(changes);
+        List<TaskFieldChange> decoded = taskChangeCodec.decode(encoded);
+        //then
+        Assertions.assertTrue(encoded.length < description.length());
+        Assertions.assertEquals(description + "!", decoded.get(0).getNewValue());
+    }
+
+    @Test
+    void shouldDecodeChangesStoredAsObjects() {
+        //given
+        byte[] json = "[{\"field\":\"status\",\"oldValue\":\"TO_DO\",\"newValue\":\"DONE\"}]".getBytes(StandardCharsets.UTF_8);
+        byte[] stored = new byte[json.length + 1];
+        System.arraycopy(json, 0, stored, 1, json.length);
+        //when
+        List<TaskFieldChange> decoded = taskChangeCodec.decode(stored);
+        //then
+        Assertions.assertEquals("DONE", decoded.get(0).getNewValue());
+    }
+
+    @Test
+    void shouldDecodeChangesDeflatedWithoutPool() {
+        //given
+        String description = "Long description ".repeat(100);
+        byte[] json = ("[[\"description\",\"" + description + "\",\"" + description + "!\"]]").getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater();
+        deflater.setInput(json);
+        deflater.finish();
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        stored.write(1);
+        byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            stored.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        //when
+        List<TaskFieldChange> decoded = taskChangeCodec.decode(stored.toByteArray());
+        //then
+        Assertions.assertEquals(description + "!", decoded.get(0).getNewValue());
+    }
+
+    @Test
+    void shouldRejectChangesDeflatedWithDictionary() {
+        //given
+        byte[] json = "[[\"status\",\"TO_DO\",\"DONE\"]]".getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater();
+        deflater.setDictionary("status".getBytes(StandardCharsets.UTF_8));
+        deflater.setInput(json);
+        deflater.finish();
+        byte[] buffer = new byte[1024];
+        buffer[0] = 1;
+        int length = deflater.deflate(buffer, 1, buffer.length - 1);
+        deflater.end();
+        byte[] stored = Arrays.copyOf(buffer, length + 1);
+        //when + then
+        Assertions.assertThrows(IllegalStateException.class, () -> taskChangeCodec.decode(stored));
+    }
+}
@@ -0,0 +1,32 @@
+package pl.wolniarskim.project_management.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+class MentionParserTest {
+
+    @Test
+    void shouldFindEveryMentionOnce() {
+        //when
+        Set<String> emails = MentionParser.findMentionedEmails("Hi @@@@a@wp.pl@@@@ and @@@@b@wp.pl@@@@, again @@@@a@wp.pl@@@@");
+        //then
+        Assertions.assertEquals(List.of("a@wp.pl", "b@wp.pl"), List.copyOf(emails));
+    }
+
+    @Test
+    void shouldIgnoreUnclosedAndEmptyMentions() {
+        //when
+        Set<String> emails = MentionParser.findMentionedEmails("@@@@@@@@ text @@@@a@wp.pl@@@@ @@@@b@wp.pl");
+        //then
+        Assertions.assertEquals(Set.of("a@wp.pl"), emails);
+    }
+
+    @Test
+    void shouldReturnNoMentionsForPlainText() {
+        Assertions.assertTrue(MentionParser.findMentionedEmails("no mentions here").isEmpty());
+        Assertions.assertTrue(MentionParser.findMentionedEmails(null).isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package pl.wolniarskim.project_management.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class RankUtilTest {
+
+    @Test
+    void shouldReturnKeyBetweenGivenKeys() {
+        //when + then
+        assertBetween("1", "2", RankUtil.between("1", "2"));
+        assertBetween("1", "1001", RankUtil.between("1", "1001"));
+        assertBetween("", "0001", RankUtil.between(null, "0001"));
+        assertBetween("zz", null, RankUtil.between("zz", null));
+        Assertions.assertEquals("i", RankUtil.between(null, null));
+    }
+
+    @Test
+    void shouldRejectKeysInWrongOrder() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RankUtil.between("b", "a"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RankUtil.between("a", "a"));
+    }
+
+    @Test
+    void shouldAppendWithoutMakingKeysLonger() {
+        //given
+        String key = RankUtil.after(null);
+        //when
+        for (int i = 0; i < 10_000; i++) {
+            String next = RankUtil.after(key);
+            assertBetween(key, null, next);
+            key = next;
+        }
+        //then
+        Assertions.assertTrue(key.length() <= 6);
+    }
+
+    @Test
+    void shouldKeepOrderOfRandomInsertions() {
+        //given
+        Random random = new Random(42);
+        List<String> keys = new ArrayList<>(List.of(RankUtil.after(null)));
+        //when
+        for (int i = 0; i < 2_000; i++) {
+            int position = random.nextInt(keys.size() + 1);
+            String lower = position == 0 ? null : keys.get(position - 1);
+            String upper = position == keys.size() ? null : keys.get(position);
+            keys.add(position, RankUtil.between(lower, upper));
+        }
+        //then
+        List<String> sorted = new ArrayList<>(keys);
+        sorted.sort(null);
+        Assertions.assertEquals(sorted, keys);
+        Assertions.assertEquals(keys.size(), keys.stream().distinct().count());
+    }
+
+    @Test
+    void shouldSpreadShortKeysEvenly() {
+        //when
+        List<String> keys = RankUtil.spread(1000);
+        //then
+        Assertions.assertEquals(1000, keys.size());
+        for (int i = 1; i < keys.size(); i++) {
+            assertBetween(keys.get(i - 1), null, keys.get(i));
+        }
+        Assertions.assertTrue(keys.stream().allMatch(key -> key.length() <= 2 && !key.endsWith("0")));
+    }
+
+    private void assertBetween(String lower, String upper, String key) {
+        Assertions.assertTrue(key.compareTo(lower) > 0, key + " is not after " + lower);
+        if (upper != null) {
+            Assertions.assertTrue(key.compareTo(upper) < 0, key + " is not before " + upper);
+        }
+        Assertions.assertFalse(key.endsWith("0"), key + " ends with zero");
+    }
+}
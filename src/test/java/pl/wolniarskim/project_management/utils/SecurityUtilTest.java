@@ -0,0 +1,47 @@
+package pl.wolniarskim.project_management.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import pl.wolniarskim.project_management.exceptions.PermissionDeniedException;
+import pl.wolniarskim.project_management.models.Permission;
+import pl.wolniarskim.project_management.models.Role;
+import pl.wolniarskim.project_management.models.User;
+
+import java.util.List;
+
+import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.PROJECT_READ;
+import static pl.wolniarskim.project_management.models.Permission.PermissionEnum.TASK_CREATE;
+
+class SecurityUtilTest {
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldPassPermissionCheckWhenRoleHasPermission() {
+        //given
+        logIn(new Role("ROLE", List.of(new Permission(TASK_CREATE))));
+        //when + then
+        Assertions.assertTrue(SecurityUtil.isUserHavingPermission(TASK_CREATE));
+        Assertions.assertDoesNotThrow(() -> SecurityUtil.checkUserPermission(TASK_CREATE));
+    }
+
+    @Test
+    void shouldDenyPermissionWhenRoleHasNotPermission() {
+        //given
+        logIn(new Role("ROLE", List.of(new Permission(TASK_CREATE))));
+        //when + then
+        Assertions.assertFalse(SecurityUtil.isUserHavingPermission(PROJECT_READ));
+        Assertions.assertThrows(PermissionDeniedException.class, () -> SecurityUtil.checkUserPermission(PROJECT_READ));
+    }
+
+    private static void logIn(Role role) {
+        User user = new User("First", "Last", "nick", "test1@wp.pl", "password", role);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+}